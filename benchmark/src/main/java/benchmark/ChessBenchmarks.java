@@ -0,0 +1,144 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.MoveList;
+import chess.MoveUndo;
+import chess.Perft;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks for the hot paths of the shared chess module.  Build with mvn package and run
+ * with java -jar benchmark/target/benchmarks.jar (append a regex to run a subset).
+ * <p>
+ * Most benchmarks run against an Italian Game middlegame, where every piece type has moves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessBenchmarks {
+
+    private static final String[] OPENING = {"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "d2d3", "f8c5"};
+
+    private static final String[] FOOLS_MATE = {"f2f3", "e7e5", "g2g4", "d8h4"};
+
+    private ChessGame middlegame;
+    // the middlegame again, for benchmarks that make moves or drop cached moves
+    private ChessGame uncached;
+    private ChessGame foolsMate;
+    private ChessPosition queenSquare;
+    private ChessPiece queen;
+    private ChessPosition knightSquare;
+    private ChessMove castleBishopMove;
+    private final MoveList moveBuffer = new MoveList();
+
+    @Setup(Level.Trial)
+    public void setUp() throws InvalidMoveException {
+        middlegame = new ChessGame();
+        for (String move : OPENING) {
+            middlegame.makeMove(parse(move));
+        }
+        uncached = new ChessGame(middlegame);
+        foolsMate = new ChessGame();
+        for (String move : FOOLS_MATE) {
+            foolsMate.makeMove(parse(move));
+        }
+        queenSquare = ChessPosition.of(1, 4);
+        queen = middlegame.getBoard().getPiece(queenSquare);
+        knightSquare = ChessPosition.of(3, 6);
+        castleBishopMove = parse("c4b5");
+    }
+
+    private static ChessMove parse(String move) {
+        return ChessMove.of(
+                ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1),
+                null);
+    }
+
+    @Benchmark
+    public Object pieceMoves() {
+        return queen.pieceMoves(middlegame.getBoard(), queenSquare);
+    }
+
+    @Benchmark
+    public int pieceMovesIntoBuffer() {
+        moveBuffer.clear();
+        queen.pieceMoves(middlegame.getBoard(), queenSquare, moveBuffer);
+        return moveBuffer.size();
+    }
+
+    /**
+     * validMoves on a game that has not generated its legal moves yet.  Setting the previous move
+     * (to the same move) marks the game's cached moves stale, so every call generates them again.
+     */
+    @Benchmark
+    public Object validMovesUncached() {
+        uncached.setPrevMove(uncached.getPrevMove());
+        return uncached.validMoves(knightSquare);
+    }
+
+    /**
+     * validMoves repeated in an unchanged position, as the client's highlight command does
+     */
+    @Benchmark
+    public Object validMovesCached() {
+        return middlegame.validMoves(knightSquare);
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return middlegame.isInCheck(ChessGame.TeamColor.WHITE);
+    }
+
+    /**
+     * isInCheckmate on white after fool's mate, so it has to show that no move gets white out of
+     * check; the cached moves are marked stale first, as in validMovesUncached
+     */
+    @Benchmark
+    public boolean isInCheckmate() {
+        foolsMate.setPrevMove(foolsMate.getPrevMove());
+        return foolsMate.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    /**
+     * a move made and taken back in place, as search and perft do, leaving the game as it was
+     */
+    @Benchmark
+    public ChessGame makeAndUnmakeMove() {
+        MoveUndo undo = uncached.makeUncheckedMove(castleBishopMove);
+        uncached.unmakeMove(undo);
+        return uncached;
+    }
+
+    @Benchmark
+    public ChessBoard copyBoard() {
+        return new ChessBoard(middlegame.getBoard());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void perftStartDepth4(Blackhole blackhole) {
+        blackhole.consume(Perft.perft(Positions.START.newGame(), 4));
+    }
+}
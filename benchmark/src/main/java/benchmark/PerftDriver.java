@@ -0,0 +1,66 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Perft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs perft on the standard test positions and reports node counts and nodes/second.
+ * <p>
+ * Usage: PerftDriver [--parallel] [--divide] [depth] [position]
+ * where depth defaults to 5 and position is one of Positions (all of them by default).
+ * --parallel counts on every core, and --divide also prints the count below each first move at
+ * the deepest depth.  Exits with status 1 if any count differs from the published one.
+ */
+public class PerftDriver {
+
+    public static void main(String[] args) {
+        boolean parallel = false;
+        boolean divide = false;
+        List<String> rest = new ArrayList<>();
+        for (String arg : args) {
+            switch (arg) {
+                case "--parallel" -> parallel = true;
+                case "--divide" -> divide = true;
+                default -> rest.add(arg);
+            }
+        }
+        int depth = rest.size() > 0 ? Integer.parseInt(rest.get(0)) : 5;
+        Positions[] positions = rest.size() > 1
+                ? new Positions[]{Positions.valueOf(rest.get(1).toUpperCase())}
+                : Positions.values();
+
+        boolean allMatch = true;
+        for (Positions position : positions) {
+            for (int d = 1; d <= depth; d++) {
+                ChessGame game = position.newGame();
+                long start = System.nanoTime();
+                Map<ChessMove, Long> counts = null;
+                long nodes;
+                if (divide && d == depth) {
+                    counts = parallel ? Perft.divideParallel(game, d) : Perft.divide(game, d);
+                    nodes = counts.values().stream().mapToLong(Long::longValue).sum();
+                } else {
+                    nodes = parallel ? Perft.perftParallel(game, d) : Perft.perft(game, d);
+                }
+                long elapsed = System.nanoTime() - start;
+
+                long expected = position.expectedNodes(d);
+                String verdict = expected < 0 ? "" : (nodes == expected ? "ok" : "MISMATCH, expected " + expected);
+                allMatch &= (expected < 0) || (nodes == expected);
+                System.out.printf("%-12s depth %d  %,14d nodes  %,10.1f ms  %,14.0f nodes/s  %s%n",
+                        position, d, nodes, elapsed / 1e6, nodes / (elapsed / 1e9), verdict);
+                if (counts != null) {
+                    counts.forEach((move, count) -> System.out.printf("    %-6s %,14d%n", move.toNotation(), count));
+                }
+            }
+        }
+        if (!allMatch) {
+            System.exit(1);
+        }
+    }
+}
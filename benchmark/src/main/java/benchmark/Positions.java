@@ -0,0 +1,50 @@
+package benchmark;
+
+import chess.ChessGame;
+
+/**
+ * Standard test positions with their published perft node counts
+ * (see https://www.chessprogramming.org/Perft_Results).
+ */
+public enum Positions {
+    START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            new long[]{1, 20, 400, 8_902, 197_281, 4_865_609, 119_060_324L}),
+    // "Kiwipete": castling both ways for both teams, pins, promotions and en passant
+    KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            new long[]{1, 48, 2_039, 97_862, 4_085_603, 193_690_690L}),
+    // "position 3": en passant, discovered checks, and pins along the fourth and fifth ranks
+    ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            new long[]{1, 14, 191, 2_812, 43_238, 674_624, 11_030_083, 178_633_661L}),
+    // "position 4": underpromotions and black castling while white cannot
+    PROMOTIONS("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            new long[]{1, 6, 264, 9_467, 422_333, 15_833_292L}),
+    // "position 5"
+    MIDGAME("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            new long[]{1, 44, 1_486, 62_379, 2_103_487, 89_941_194L}),
+    // "position 6": a quiet, symmetrical middlegame
+    SYMMETRICAL("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            new long[]{1, 46, 2_079, 89_890, 3_894_594, 164_075_551L});
+
+    private final String fen;
+    // [depth] -> expected node count
+    private final long[] expectedNodes;
+
+    Positions(String fen, long[] expectedNodes) {
+        this.fen = fen;
+        this.expectedNodes = expectedNodes;
+    }
+
+    /**
+     * @return a new game set up in this position
+     */
+    public ChessGame newGame() {
+        return ChessGame.fromFen(fen);
+    }
+
+    /**
+     * @return the published node count at the given depth, or -1 if it is not known here
+     */
+    public long expectedNodes(int depth) {
+        return depth < expectedNodes.length ? expectedNodes[depth] : -1;
+    }
+}
@@ -1,6 +1,9 @@
 package client;
 
 import chess.*;
+import engine.Engine;
+import engine.SearchLimits;
+import engine.SearchResult;
 import model.GameData;
 import repl.LoggedInRepl;
 import repl.LoggedOutRepl;
@@ -28,6 +31,7 @@ public class ChessClient {
     private Boolean isPlaying = Boolean.FALSE;
     private Boolean hasResigned = Boolean.FALSE;
     private GameData currentGame;
+    private final Engine engine = new Engine();
 
     public ChessClient(int port) throws ResponseException {
         server = new ServerFacade(port);
@@ -436,7 +440,7 @@ public class ChessClient {
         }
         ChessMove desiredMove = new ChessMove(startSquare, endSquare, promoPiece);
         try {
-            ws.makeMove(this.authToken, this.currentGame.gameID(), start, end, desiredMove, this.perspective);
+            ws.makeMove(this.authToken, this.currentGame.gameID(), desiredMove, this.perspective);
             return "";
         } catch (ResponseException e) {
             return "failed to make or report the move";
@@ -481,6 +485,45 @@ public class ChessClient {
         }
         return "resign game";
     }
+    public String hintClient(String... params){
+        if (this.currentGame == null){
+            return "join or observe a game to get a hint";
+        }
+        ChessGame game = this.currentGame.game();
+        if (!this.currentGame.canUpdate() || game.getStatus().isGameOver()){
+            return "the game has concluded";
+        }
+        long seconds = 1;
+        if (params.length > 0){
+            try {
+                seconds = Long.parseLong(params[0]);
+            } catch (NumberFormatException ex){
+                seconds = 0;
+            }
+            if (seconds < 1 || seconds > 60){
+                return "provide a number of seconds (1 -- 60) to think, like \"hint 3\"";
+            }
+        }
+        SearchResult result = engine.search(game, SearchLimits.millis(seconds * 1000));
+        ChessMove move = result.bestMove();
+        String evaluation;
+        if (Engine.isMateScore(result.score())){
+            // IE plies until mate, rounded up to whole moves
+            int moves = (Engine.MATE_SCORE - Math.abs(result.score()) + 1) / 2;
+            evaluation = String.format("%s in %d", result.score() > 0 ? "mate" : "mated", moves);
+        } else {
+            evaluation = String.format("%+.2f", result.score() / 100.0);
+        }
+        String promotion = move.getPromotionPiece() == null ? "" : " " + move.getPromotionPiece();
+        return String.format("%s could move %s %s%s (%s, looking %d half-moves ahead at %,d positions/s)",
+                game.getTeamTurn(),
+                move.getStartPosition().toNotation().toUpperCase(),
+                move.getEndPosition().toNotation().toUpperCase(),
+                promotion,
+                evaluation,
+                result.depth(),
+                result.nodesPerSecond());
+    }
     public void notify(String message){
         System.out.println(message);
     }
@@ -488,5 +531,7 @@ public class ChessClient {
         // the client should receive and record the current game state AND print the updated board
         this.currentGame = message.getGame();
         System.out.println( "\n" + new DrawChess( message.getGame().game().getBoard(), this.perspective).main() );
+        // positive favors white, in pawns
+        System.out.printf( "evaluation: %+.2f%n", message.getEvaluation() / 100.0 );
     }
 }
@@ -88,12 +88,10 @@ public class WebSocketFacade extends Endpoint{
 
     public void makeMove(String authToken,
                          Integer gameID,
-                         String start,
-                         String end,
                          ChessMove move,
                          ChessGame.TeamColor color) throws ResponseException {
         try {
-            MakeMoveCommand action = new MakeMoveCommand(authToken, gameID, start, end, move, color);
+            MakeMoveCommand action = new MakeMoveCommand(authToken, gameID, move, color);
             this.session.getBasicRemote().sendText(new Gson().toJson(action));
         } catch (IOException ex) {
             throw new ResponseException(ResponseException.Code.OtherServerError, ex.getMessage());
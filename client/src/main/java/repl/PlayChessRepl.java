@@ -48,6 +48,7 @@ public class PlayChessRepl implements Repl{
         return switch (cmd) {
             case "draw" -> client.drawClient( params );
             case "highlight" -> client.highlightLegalMovesClient( params );
+            case "hint" -> client.hintClient( params );
             case "leave" -> client.leaveClient( params );
             case "move" -> client.moveClient( params );
             case "resign" -> client.resignClient( params );
@@ -63,6 +64,7 @@ public class PlayChessRepl implements Repl{
                 -highlight legal moves for a given piece "highlight <col> <row>"
                 -leave the game (you or another player may resume play later) "leave"
                 -make a move in the game "move <current col><current row> <destination col><destination row>
+                -ask the computer for a move "hint <seconds to think?>"
                 -forfeit the game "resign"
                 -help with possible commands "help"
                 """;
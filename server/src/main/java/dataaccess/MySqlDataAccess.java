@@ -48,7 +48,8 @@ public class MySqlDataAccess implements DataAccess {
                 `whiteUsername` varchar(256),
                 `blackUsername` varchar(256),
                 `gameName` varchar(256) NOT NULL,
-                `game` varchar(10000) NOT NULL,
+                `game` varchar(10000),
+                `game_bin` blob,
                 `can_update` tinyint(1) NOT NULL DEFAULT 1,
             PRIMARY KEY (`game_id`),
             INDEX(`gameName`)
@@ -64,11 +65,57 @@ public class MySqlDataAccess implements DataAccess {
                     preparedStatement.executeUpdate();
                 }
             }
+            migrateGamesToBinary(conn);
         } catch (SQLException ex) {
             throw new DataAccessException(String.format("Unable to configure database: %s", ex.getMessage()));
         }
     }
 
+    /**
+     * Games used to be stored only as JSON in the `game` column.  Adds the `game_bin` column to a
+     * games table made before it existed, then rewrites any JSON rows in the binary form
+     * (see ChessGame.toBytes) and clears their JSON.
+     */
+    private void migrateGamesToBinary(Connection conn) throws SQLException {
+        var columnQuery = "SELECT COUNT(*) FROM information_schema.columns "
+                + "WHERE table_schema = DATABASE() AND table_name = 'games' AND column_name = 'game_bin'";
+        try (PreparedStatement ps = conn.prepareStatement(columnQuery);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            if (rs.getInt(1) == 0) {
+                try (PreparedStatement alter = conn.prepareStatement(
+                        "ALTER TABLE games ADD COLUMN `game_bin` blob, MODIFY `game` varchar(10000)")) {
+                    alter.executeUpdate();
+                }
+            }
+        }
+
+        var selectStatement = "SELECT game_id, game FROM games WHERE game_bin IS NULL AND game IS NOT NULL";
+        var updateStatement = "UPDATE games SET game_bin=?, game=NULL WHERE game_id=?";
+        try (PreparedStatement select = conn.prepareStatement(selectStatement);
+             PreparedStatement update = conn.prepareStatement(updateStatement);
+             ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                ChessGame game = new Gson().fromJson(rs.getString("game"), ChessGame.class);
+                update.setBytes(1, game.toBytes());
+                update.setInt(2, rs.getInt("game_id"));
+                update.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * reads the game out of a games row, falling back to the JSON column for a row written before
+     * the binary column existed
+     */
+    private static ChessGame readGame(ResultSet rs) throws SQLException {
+        byte[] bytes = rs.getBytes("game_bin");
+        if (bytes != null) {
+            return ChessGame.fromBytes(bytes);
+        }
+        return new Gson().fromJson(rs.getString("game"), ChessGame.class);
+    }
+
     private int executeUpdate(String statement, Object... params) throws SQLException {
         try (Connection conn = DatabaseManager.getConnection()) {
             try (PreparedStatement ps = conn.prepareStatement(statement, Statement.RETURN_GENERATED_KEYS)){
@@ -76,6 +123,7 @@ public class MySqlDataAccess implements DataAccess {
                     Object param = params[i];
                     if (param instanceof String p) {ps.setString(i + 1, p);}
                     else if (param instanceof Integer p) {ps.setInt(i+1, p);}
+                    else if (param instanceof byte[] p) {ps.setBytes(i+1, p);}
                     else if (param == null) {ps.setNull(i+1, java.sql.Types.NULL);}
                 }
                 ps.executeUpdate();
@@ -148,7 +196,7 @@ public class MySqlDataAccess implements DataAccess {
                                 rs.getString("whiteUsername"),
                                 rs.getString("blackUsername"),
                                 rs.getString("gameName"),
-                                new Gson().fromJson(rs.getString("game"), ChessGame.class),
+                                readGame(rs),
                                 rs.getBoolean("can_update"));
                         games.put(game.gameID(), game);
                     }
@@ -240,10 +288,10 @@ public class MySqlDataAccess implements DataAccess {
 
     @Override
     public GameData createGame(String gameName) throws DataAccessException {
-        var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, game) VALUES (?, ?, ?, ?)";
+        var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, game_bin) VALUES (?, ?, ?, ?)";
         try {
-            String jsonGame = new Gson().toJson( new ChessGame() );
-            int gameID = executeUpdate(statement, null, null, gameName, jsonGame);
+            byte[] binaryGame = new ChessGame().toBytes();
+            int gameID = executeUpdate(statement, null, null, gameName, binaryGame);
             return new GameData(gameID, null, null, gameName, new ChessGame(), Boolean.TRUE);
         } catch (SQLException e) {
             throw new DataAccessException("Database error creating new game "+gameName, e);
@@ -263,7 +311,7 @@ public class MySqlDataAccess implements DataAccess {
                                 rs.getString("whiteUsername"),
                                 rs.getString("blackUsername"),
                                 rs.getString("gameName"),
-                                new Gson().fromJson(rs.getString("game"), ChessGame.class),
+                                readGame(rs),
                                 rs.getBoolean("can_update")
                         );
                         games.add(game);
@@ -283,16 +331,15 @@ public class MySqlDataAccess implements DataAccess {
             throw new DataAccessException("gameID must be positive int");
         }
         if (game.game() == null){
-            // necessary because the Gson() object below converts null to "null" which plugs into the games table just fine
-            // even though the ChessGame object really is null and an error should be thrown
+            // a null game would otherwise be stored as a NULL game_bin, which reads back as the JSON column
             throw new DataAccessException("ChessGame must not be null");
         }
-        var statement = "UPDATE games SET whiteUsername=?, blackUsername=?, gameName=?, game=? WHERE game_id=?";
+        var statement = "UPDATE games SET whiteUsername=?, blackUsername=?, gameName=?, game_bin=?, game=NULL WHERE game_id=?";
         try {
             int gameID = executeUpdate(statement, game.whiteUsername(),
                     game.blackUsername(),
                     game.gameName(),
-                    new Gson().toJson( game.game() ),
+                    game.game().toBytes(),
                     game.gameID(),
                     game.canUpdate());
         } catch (SQLException e){
@@ -1,6 +1,9 @@
 package server;
 
+import chess.ChessGame;
 import chess.InvalidMoveException;
+import chess.PositionCache;
+import chess.Tablebase;
 import exception.AlreadyTakenException;
 import exception.BadRequestException;
 import exception.DataAccessException;
@@ -9,6 +12,7 @@ import requests.*;
 import results.*;
 import com.google.gson.Gson;
 import dataaccess.*;
+import engine.OpeningBook;
 import io.javalin.*;
 import io.javalin.http.Context;
 import service.ClearService;
@@ -16,6 +20,8 @@ import service.GameService;
 import service.UserService;
 
 import javax.xml.crypto.Data;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 
 public class Server {
@@ -26,6 +32,8 @@ public class Server {
     private final GameService gameService;
     private final ClearService clearService;
     private final WebSocketHandler webSocketHandler;
+    // null unless -Dchess.openingBook names a book file (see OpeningBookBuilder)
+    private final OpeningBook openingBook;
 
     public Server(){
         DataAccess dataAccess1;
@@ -37,10 +45,17 @@ public class Server {
             System.out.println("Defaulting to local memory");
         }
         this.dataAccess = dataAccess1;
+        // one table of legal moves by position for every game in this process; size it in MB with
+        // -Dchess.positionCacheMB (0 turns it off)
+        int positionCacheMegabytes = Integer.getInteger("chess.positionCacheMB", 16);
+        if ((positionCacheMegabytes > 0) && (ChessGame.getSharedPositionCache() == null)) {
+            ChessGame.setSharedPositionCache(new PositionCache(positionCacheMegabytes));
+        }
         this.userService = new UserService(this.dataAccess);
         this.gameService = new GameService(this.dataAccess);
         this.clearService = new ClearService(this.dataAccess);
-        this.webSocketHandler = new WebSocketHandler(this.dataAccess);
+        this.webSocketHandler = new WebSocketHandler(this.dataAccess, openTablebase(tablebaseDirectory()));
+        this.openingBook = openOpeningBook(System.getProperty("chess.openingBook"));
 
         // Register your endpoints and exception handlers here.
         this.httpHandler = Javalin.create(config -> config.staticFiles.add("web"))
@@ -53,6 +68,7 @@ public class Server {
                 .put("/game", this::joinGame)
                 .patch("/game", this::updateGame)
                 .patch("/gameover", this::concludeGame)
+                .get("/book", this::bookMoves)
 //                .patch("/gamemove", this::makeMoveInGame)
                 .exception(AlreadyTakenException.class, this::alreadyTakenExceptionHandler)
                 .exception(BadRequestException.class, this::badRequestExceptionHandler)
@@ -76,6 +92,47 @@ public class Server {
         httpHandler.stop();
     }
 
+    private static OpeningBook openOpeningBook(String path){
+        if (path == null){
+            return null;
+        }
+        try {
+            return OpeningBook.open(Path.of(path));
+        } catch (IOException e) {
+            System.out.println("Unable to open opening book: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return -Dchess.tablebases if it is set, otherwise where the shared module's build writes
+     * the tables (see Tablebase.defaultDirectory)
+     */
+    static String tablebaseDirectory(){
+        return System.getProperty("chess.tablebases", Tablebase.defaultDirectory().toString());
+    }
+
+    /**
+     * maps whichever tables the directory holds; missing ones are only reported, and endgames
+     * without a table are played out as usual.  -Dchess.tablebases= (empty) turns them off
+     */
+    private static Tablebase openTablebase(String directory){
+        if ((directory == null) || directory.isEmpty()){
+            return null;
+        }
+        try {
+            Tablebase tablebase = Tablebase.open(Path.of(directory));
+            if (!tablebase.missingFiles().isEmpty()) {
+                System.out.println("Endgame tablebases missing from " + directory + ": "
+                        + String.join(", ", tablebase.missingFiles()) + " (build the shared module, or run chess.TablebaseGenerator, to create them)");
+            }
+            return tablebase;
+        } catch (IOException e) {
+            System.out.println("Unable to open endgame tablebases: " + e.getMessage());
+            return null;
+        }
+    }
+
     private String exceptionToJSON(Exception ex){
         HashMap<String, String> errorHash = new HashMap<>();
         errorHash.put("message", "Error: " + ex.getMessage() );
@@ -166,4 +223,22 @@ public class Server {
         ctx.status(200).json(new Gson().toJson( result));
     }
 
+    private void bookMoves(Context ctx) throws BadRequestException {
+        // the moves played from a position (given as FEN, or the starting position by default)
+        if (openingBook == null){
+            ctx.status(404);
+            ctx.result(exceptionToJSON(new Exception("no opening book is loaded")));
+            return;
+        }
+        String fen = ctx.queryParam("fen");
+        ChessGame game;
+        try {
+            game = fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+        BookMovesResult result = new BookMovesResult(openingBook.moves(game));
+        ctx.status(200).json(new Gson().toJson( result ));
+    }
+
 }
@@ -1,7 +1,10 @@
 package server;
 
 import chess.ChessGame;
+import chess.GameStatus;
 import chess.InvalidMoveException;
+import chess.Tablebase;
+import chess.TablebaseResult;
 import com.google.gson.Gson;
 import dataaccess.DataAccess;
 import exception.DataAccessException;
@@ -21,9 +24,12 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 
     private final ConnectionManager connections = new ConnectionManager();
     private final DataAccess dataAccess;
+    // perfect-play results of the simplest endgames; null if there are none
+    private final Tablebase tablebase;
 
-    public WebSocketHandler (DataAccess dataAccess){
+    public WebSocketHandler (DataAccess dataAccess, Tablebase tablebase){
         this.dataAccess = dataAccess;
+        this.tablebase = tablebase;
     }
 
     @Override
@@ -217,7 +223,9 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             moveIsValid = Boolean.FALSE;
         }
         // check that you are not in stalemate---IE that you still have at least one legal move to make.
-        if (updatedGame.isInStalemate(playingColor)) {
+        // the game keeps the status of the team to move, worked out when the last move was made
+        GameStatus status = updatedGame.getStatus();
+        if ((status.state() == GameStatus.State.STALEMATE) && (status.team() == playingColor)) {
             // I think you only need to check stalemate for the team whose turn it is
             // ends in a draw on their turn.
             String inStalemateBroadcast = String.format("%s playing %s is in stalemate! the game is a draw.",
@@ -233,6 +241,9 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             }
         }
         if ((!gameOver) && (moveIsValid)) {
+            // a forced mate is announced once, on the move that reaches it, not again on every move after
+            TablebaseResult endgameBefore = (tablebase == null) ? null : tablebase.probe(updatedGame);
+            boolean mateAnnounced = (endgameBefore != null) && !endgameBefore.isDraw();
             try {
                 // try to make the move.  Will throw an error in not a valid move.
                 updatedGame.makeMove(command.getMove());
@@ -243,7 +254,9 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
                 moveIsValid = Boolean.FALSE;
             }
             if (moveIsValid) {
-                if (updatedGame.isInCheckmate(opposingColor)) {
+                // makeMove has already worked out where the opposing team stands
+                status = updatedGame.getStatus();
+                if (status.state() == GameStatus.State.CHECKMATE) {
                     String inCheckMateBroadcast = String.format("%s playing %s is in checkmate!  %s playing %s wins the game!",
                             opposingUsername, opposingUsername, playingUsername, playingColor);
                     connections.broadcast(command.getGameID(), null, new NotificationMessage(inCheckMateBroadcast));
@@ -255,7 +268,40 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
                         sendMessage(session, new ErrorMessage("Error: couldn't conclude the game at checkmate."));
                     }
                 }
-                if (!(gameOver) && (updatedGame.isInCheck(opposingColor))) {
+                if ((status.state() == GameStatus.State.THREEFOLD_REPETITION)
+                        || (status.state() == GameStatus.State.FIFTY_MOVE_RULE)) {
+                    String drawBroadcast = status.state() == GameStatus.State.THREEFOLD_REPETITION
+                            ? "The same position has occurred three times! the game is a draw."
+                            : "Fifty moves without a capture or pawn move! the game is a draw.";
+                    connections.broadcast(command.getGameID(), null, new NotificationMessage(drawBroadcast));
+                    // and record that the game is over!
+                    gameOver = Boolean.TRUE;
+                    try {
+                        this.dataAccess.concludeGame(command.getGameID());
+                    } catch (DataAccessException e) {
+                        sendMessage(session, new ErrorMessage("Error: couldn't conclude the game at a draw."));
+                    }
+                }
+                // down to a few pieces the tablebase knows how the game ends with best play
+                TablebaseResult endgame = (gameOver || tablebase == null) ? null : tablebase.probe(updatedGame);
+                if ((endgame != null) && endgame.isDraw()) {
+                    String drawBroadcast = "Neither team can force checkmate! the game is a draw.";
+                    connections.broadcast(command.getGameID(), null, new NotificationMessage(drawBroadcast));
+                    // and record that the game is over!
+                    gameOver = Boolean.TRUE;
+                    try {
+                        this.dataAccess.concludeGame(command.getGameID());
+                    } catch (DataAccessException e) {
+                        sendMessage(session, new ErrorMessage("Error: couldn't conclude the game at a draw."));
+                    }
+                } else if ((endgame != null) && !mateAnnounced) {
+                    String winnerUsername = endgame.winner() == ChessGame.TeamColor.WHITE
+                            ? gameData.whiteUsername() : gameData.blackUsername();
+                    String forcedMateBroadcast = String.format("%s playing %s can force checkmate in %d moves.",
+                            winnerUsername, endgame.winner(), endgame.movesToMate());
+                    connections.broadcast(command.getGameID(), null, new NotificationMessage(forcedMateBroadcast));
+                }
+                if (!(gameOver) && (status.state() == GameStatus.State.CHECK)) {
                     // see if making the move places the other team in check, then notify
                     String inCheckBroadcast = String.format("%s playing %s is in check!", opposingUsername, opposingColor);
                     connections.broadcast(command.getGameID(), null, new NotificationMessage(inCheckBroadcast));
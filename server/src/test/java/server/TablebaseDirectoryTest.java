@@ -0,0 +1,26 @@
+package server;
+
+import chess.ChessPiece;
+import chess.Tablebase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+class TablebaseDirectoryTest {
+
+    @Test
+    @DisplayName("Default Directory Holds The Built Tables")
+    void defaultDirectoryHasTables() throws IOException {
+        Assertions.assertNull(System.getProperty("chess.tablebases"));
+        // the shared module's build writes them, so the server can map them without generating any
+        try (Tablebase tablebase = Tablebase.open(Path.of(Server.tablebaseDirectory()))) {
+            Assertions.assertTrue(tablebase.covers(ChessPiece.PieceType.QUEEN));
+            Assertions.assertTrue(tablebase.covers(ChessPiece.PieceType.ROOK));
+            Assertions.assertTrue(tablebase.covers(ChessPiece.PieceType.PAWN));
+            Assertions.assertTrue(tablebase.missingFiles().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Move and attack tables for every square, computed once when the class loads.  Squares are
+ * ChessBoard bit indexes: (row - 1) * 8 + (col - 1).
+ * <p>
+ * Each table comes in two forms: an array of target squares, for generating moves one at a time,
+ * and a bitboard mask, for answering "is any of these pieces on one of these squares" with a
+ * single AND.
+ */
+final class AttackTables {
+
+    /**
+     * The eight sliding directions as (row, col) steps.  The first four are diagonal (bishop)
+     * directions, the last four perpendicular (rook) directions.
+     */
+    static final int[][] DIRECTIONS = {
+            {1, 1}, {1, -1}, {-1, -1}, {-1, 1},
+            {1, 0}, {0, -1}, {-1, 0}, {0, 1}
+    };
+    static final int FIRST_DIAGONAL = 0;
+    static final int FIRST_PERPENDICULAR = 4;
+
+    private static final int[][] KNIGHT_OFFSETS = {{2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}, {1, 2}, {2, 1}};
+
+    // [square] -> target squares
+    static final int[][] KNIGHT_TARGETS = new int[64][];
+    static final int[][] KING_TARGETS = new int[64][];
+    // [square] -> target mask
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    // [TeamColor.ordinal()][square] -> squares a pawn of that team on that square attacks
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    // [direction][square] -> squares along the ray, nearest first, not including the square itself
+    static final int[][][] RAYS = new int[8][64][];
+    static final long[][] RAY_MASKS = new long[8][64];
+    // [square][square] -> squares strictly between the two, or 0 if they do not share a line
+    static final long[][] BETWEEN = new long[64][64];
+    // [square][square] -> the whole line (edge to edge) through both squares, or 0 if they do not share one
+    static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            int col = square & 7;
+
+            KNIGHT_TARGETS[square] = offsetTargets(row, col, KNIGHT_OFFSETS);
+            KNIGHT_ATTACKS[square] = toMask(KNIGHT_TARGETS[square]);
+            KING_TARGETS[square] = offsetTargets(row, col, DIRECTIONS);
+            KING_ATTACKS[square] = toMask(KING_TARGETS[square]);
+
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] =
+                    toMask(offsetTargets(row, col, new int[][]{{1, -1}, {1, 1}}));
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] =
+                    toMask(offsetTargets(row, col, new int[][]{{-1, -1}, {-1, 1}}));
+
+            for (int direction = 0; direction < 8; direction++) {
+                RAYS[direction][square] = rayTargets(row, col, DIRECTIONS[direction]);
+                RAY_MASKS[direction][square] = toMask(RAYS[direction][square]);
+            }
+        }
+        for (int square = 0; square < 64; square++) {
+            for (int direction = 0; direction < 8; direction++) {
+                long line = RAY_MASKS[direction][square] | RAY_MASKS[opposite(direction)][square] | (1L << square);
+                long between = 0;
+                for (int target : RAYS[direction][square]) {
+                    BETWEEN[square][target] = between;
+                    LINE[square][target] = line;
+                    between |= 1L << target;
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    /**
+     * @return index of the direction pointing the opposite way; directions come in opposing pairs
+     * two apart within each group of four
+     */
+    static int opposite(int direction) {
+        return (direction & 4) | ((direction + 2) & 3);
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return (row >= 0) && (row <= 7) && (col >= 0) && (col <= 7);
+    }
+
+    private static int[] offsetTargets(int row, int col, int[][] offsets) {
+        int[] targets = new int[offsets.length];
+        int count = 0;
+        for (int[] offset : offsets) {
+            if (onBoard(row + offset[0], col + offset[1])) {
+                targets[count++] = (row + offset[0]) * 8 + (col + offset[1]);
+            }
+        }
+        return Arrays.copyOf(targets, count);
+    }
+
+    private static int[] rayTargets(int row, int col, int[] direction) {
+        int[] targets = new int[7];
+        int count = 0;
+        for (int r = row + direction[0], c = col + direction[1]; onBoard(r, c); r += direction[0], c += direction[1]) {
+            targets[count++] = r * 8 + c;
+        }
+        return Arrays.copyOf(targets, count);
+    }
+
+    private static long toMask(int[] squares) {
+        long mask = 0;
+        for (int square : squares) {
+            mask |= 1L << square;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,73 @@
+package chess;
+
+/**
+ * Castling rights as a 4-bit mask.  A right is lost for good once the king or that side's rook
+ * moves (or the rook is captured); whether castling is possible at the moment also depends on the
+ * squares between king and rook, which LegalMoveGenerator checks.
+ */
+final class CastlingRights {
+
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL = 15;
+    static final int NONE = 0;
+
+    // home squares, as ChessBoard bit indexes
+    static final int WHITE_KING_SQUARE = 4;
+    static final int BLACK_KING_SQUARE = 60;
+
+    // [square] -> rights kept when a piece moves from or to that square
+    private static final int[] KEPT_RIGHTS = new int[64];
+
+    static {
+        java.util.Arrays.fill(KEPT_RIGHTS, ALL);
+        KEPT_RIGHTS[WHITE_KING_SQUARE] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        KEPT_RIGHTS[0] &= ~WHITE_QUEENSIDE;
+        KEPT_RIGHTS[7] &= ~WHITE_KINGSIDE;
+        KEPT_RIGHTS[BLACK_KING_SQUARE] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        KEPT_RIGHTS[56] &= ~BLACK_QUEENSIDE;
+        KEPT_RIGHTS[63] &= ~BLACK_KINGSIDE;
+    }
+
+    private CastlingRights() {
+    }
+
+    /**
+     * @return the rights that remain after a move between the given squares
+     */
+    static int afterMove(int rights, int from, int to) {
+        return rights & KEPT_RIGHTS[from] & KEPT_RIGHTS[to];
+    }
+
+    static int kingside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    static int queenside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    }
+
+    /**
+     * Works out the rights for a board whose history is unknown, IE one handed to ChessGame.setBoard:
+     * a right is assumed for every king and rook still on their starting squares
+     */
+    static int inferFrom(ChessBoard board) {
+        int rights = NONE;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int kingSquare = color == ChessGame.TeamColor.WHITE ? WHITE_KING_SQUARE : BLACK_KING_SQUARE;
+            if ((board.getPieceBitboard( color, ChessPiece.PieceType.KING ) & (1L << kingSquare)) == 0) {
+                continue;
+            }
+            long rooks = board.getPieceBitboard( color, ChessPiece.PieceType.ROOK );
+            if ((rooks & (1L << (kingSquare + 3))) != 0) {
+                rights |= kingside( color );
+            }
+            if ((rooks & (1L << (kingSquare - 4))) != 0) {
+                rights |= queenside( color );
+            }
+        }
+        return rights;
+    }
+}
@@ -1,32 +1,70 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Internally the board is a set of bitboards: one 64-bit mask per (team, piece type) pair plus an
+ * occupancy mask per team.  Square {@code (row, col)} maps to bit {@code (row - 1) * 8 + (col - 1)},
+ * so a1 is bit 0 and h8 is bit 63.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoardTypeAdapter.class)
 public class ChessBoard {
 
-    ChessPiece[][] squares = new ChessPiece[8][8];
+    static final int NUM_PIECE_BOARDS = 12;
+
+    // indexed by pieceIndex(color, type)
+    final long[] pieceBitboards = new long[NUM_PIECE_BOARDS];
+    // indexed by TeamColor.ordinal()
+    final long[] colorOccupancy = new long[2];
+    // Zobrist key of the pieces on the board (see Zobrist), kept current by placePiece and removePiece
+    private long zobristKey;
+    // material and piece-square sums for white (see PieceSquareTables), kept current the same way
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
 
     public ChessBoard() {
-        
+
     }
 
     public ChessBoard( ChessBoard original ){
-        for (int row=1; row<=8; row++){
-            for (int col=1; col<=8; col++){
-                ChessPosition mySquare = new ChessPosition(row, col);
-                if (original.getPiece( mySquare ) != null) {
-                    addPiece( mySquare, new ChessPiece( original.getPiece( mySquare ) ));
-                }
-            }
-        }
+        System.arraycopy(original.pieceBitboards, 0, this.pieceBitboards, 0, NUM_PIECE_BOARDS);
+        System.arraycopy(original.colorOccupancy, 0, this.colorOccupancy, 0, 2);
+        this.zobristKey = original.zobristKey;
+        this.middlegameScore = original.middlegameScore;
+        this.endgameScore = original.endgameScore;
+        this.phase = original.phase;
+    }
+
+    /**
+     * @return index into the per-piece bitboards for the given team and piece type
+     */
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * @return bit index (0 -- 63) of a position that is on the board
+     */
+    static int squareIndex(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + (position.getColumn() - 1);
+    }
+
+    /**
+     * @return the position corresponding to a bit index (0 -- 63)
+     */
+    static ChessPosition positionOf(int square) {
+        return ChessPosition.ofSquare( square );
     }
 
     /**
@@ -36,7 +74,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece; // subtract 1 to account for zero indexing
+        int square = squareIndex( position );
+        removePiece( square );
+        if (piece != null) {
+            placePiece( square, pieceIndex(piece.getTeamColor(), piece.getPieceType()) );
+        }
     }
 
     /**
@@ -47,7 +89,280 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return squares[position.getRow() - 1][position.getColumn() - 1];
+        int index = pieceIndexAt( squareIndex( position ) );
+        return index < 0 ? null : ChessPiece.ofIndex( index );
+    }
+
+    /**
+     * @return index of the piece bitboard holding the given square, or -1 if the square is empty
+     */
+    int pieceIndexAt(int square) {
+        long bit = 1L << square;
+        int color;
+        if ((colorOccupancy[0] & bit) != 0) {
+            color = 0;
+        } else if ((colorOccupancy[1] & bit) != 0) {
+            color = 1;
+        } else {
+            return -1;
+        }
+        for (int index = color * 6; index < color * 6 + 6; index++) {
+            if ((pieceBitboards[index] & bit) != 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    void placePiece(int square, int pieceIndex) {
+        long bit = 1L << square;
+        pieceBitboards[pieceIndex] |= bit;
+        colorOccupancy[pieceIndex / 6] |= bit;
+        zobristKey ^= Zobrist.PIECE_SQUARE[pieceIndex][square];
+        middlegameScore += PieceSquareTables.MIDDLEGAME[pieceIndex][square];
+        endgameScore += PieceSquareTables.ENDGAME[pieceIndex][square];
+        phase += PieceSquareTables.PHASE[pieceIndex];
+    }
+
+    /**
+     * Clears a square
+     * @param square bit index of the square
+     * @return index of the piece that was removed, or -1 if the square was already empty
+     */
+    int removePiece(int square) {
+        int index = pieceIndexAt( square );
+        if (index >= 0) {
+            long bit = 1L << square;
+            pieceBitboards[index] &= ~bit;
+            colorOccupancy[index / 6] &= ~bit;
+            zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+            middlegameScore -= PieceSquareTables.MIDDLEGAME[index][square];
+            endgameScore -= PieceSquareTables.ENDGAME[index][square];
+            phase -= PieceSquareTables.PHASE[index];
+        }
+        return index;
+    }
+
+    /**
+     * Moves a piece for a packed move (see MoveList), capturing whatever stands on the end square or,
+     * for a pawn moving diagonally onto an empty square, the pawn it captures en passant.  A king
+     * moving two squares castles, bringing the rook from that corner over to the square it passed.
+     * The move is not checked for legality.
+     *
+     * @return packed undo information for unmakeMove: the moved piece index in bits 0-3, the captured
+     * piece index plus one (0 if nothing was captured) in bits 4-7, and the captured square in bits 8-13
+     */
+    int makeMove(int move) {
+        int from = MoveList.from( move );
+        int to = MoveList.to( move );
+        int movedPiece = removePiece( from );
+
+        int capturedSquare = to;
+        int capturedPiece = removePiece( to );
+        if ((capturedPiece < 0) && (movedPiece % 6 == ChessPiece.PieceType.PAWN.ordinal()) && ((from & 7) != (to & 7))) {
+            // the pawn captured en passant sits beside the start square, on the end square's column
+            capturedSquare = (from & ~7) | (to & 7);
+            capturedPiece = removePiece( capturedSquare );
+        }
+
+        ChessPiece.PieceType promotion = MoveList.promotion( move );
+        placePiece( to, promotion == null ? movedPiece : (movedPiece / 6) * 6 + promotion.ordinal() );
+        if (isCastle( movedPiece, from, to )) {
+            placePiece( (from + to) / 2, removePiece( castlingRookSquare( from, to ) ) );
+        }
+        return movedPiece | ((capturedPiece + 1) << 4) | (capturedSquare << 8);
+    }
+
+    /**
+     * Takes back a move applied with makeMove
+     *
+     * @param move the packed move
+     * @param undo the value makeMove returned for it
+     */
+    void unmakeMove(int move, int undo) {
+        int from = MoveList.from( move );
+        int to = MoveList.to( move );
+        if (isCastle( undo & 0xF, from, to )) {
+            placePiece( castlingRookSquare( from, to ), removePiece( (from + to) / 2 ) );
+        }
+        removePiece( to );
+        placePiece( from, undo & 0xF );
+        int capturedPiece = ((undo >>> 4) & 0xF) - 1;
+        if (capturedPiece >= 0) {
+            placePiece( (undo >>> 8) & 0x3F, capturedPiece );
+        }
+    }
+
+    private static boolean isCastle(int pieceIndex, int from, int to) {
+        return (pieceIndex % 6 == ChessPiece.PieceType.KING.ordinal()) && (Math.abs( to - from ) == 2);
+    }
+
+    /**
+     * @return starting square of the rook that castles along with a king moving from one square to another
+     */
+    private static int castlingRookSquare(int from, int to) {
+        // IE the h-file rook when castling kingside, the a-file rook when castling queenside
+        return to > from ? from + 3 : from - 4;
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on this board.  It is updated as pieces are added, moved and
+     * removed, so reading it costs nothing; equal boards always have equal keys.
+     *
+     * @return 64-bit key of the piece placement (not including whose turn it is)
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Gets the board's static evaluation: material plus piece-square tables, blended between
+     * middlegame and endgame values by the material left (see PieceSquareTables).  Like the Zobrist
+     * key, it is updated as pieces are added, moved and removed, so reading it costs nothing.
+     *
+     * @return the board's value for white, in centipawns; negative when black is better off
+     */
+    public int getEvaluation() {
+        return PieceSquareTables.taper( middlegameScore, endgameScore, phase );
+    }
+
+    /**
+     * @return mask of the squares holding the given team's pieces of the given type
+     */
+    public long getPieceBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceBitboards[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return mask of the squares holding any of the given team's pieces
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return colorOccupancy[color.ordinal()];
+    }
+
+    /**
+     * @return mask of every occupied square
+     */
+    public long getOccupancy() {
+        return colorOccupancy[0] | colorOccupancy[1];
+    }
+
+    /**
+     * Finds a team's king.  The king bitboard is kept current by addPiece, resetBoard and the copy
+     * constructor, so this is a single bit scan rather than a search of the board.
+     *
+     * @param color the team whose king to find
+     * @return the king's position, or null if that team has no king on the board
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        long king = getPieceBitboard( color, ChessPiece.PieceType.KING );
+        return king == 0 ? null : positionOf( Long.numberOfTrailingZeros( king ) );
+    }
+
+    /**
+     * Lists the squares occupied by a team's pieces, read straight off the team's occupancy mask
+     *
+     * @param color the team whose pieces to list
+     * @return positions of that team's pieces, ordered from a1 to h8
+     */
+    public List<ChessPosition> getPiecePositions(ChessGame.TeamColor color) {
+        long pieces = getOccupancy( color );
+        List<ChessPosition> positions = new ArrayList<>(Long.bitCount( pieces ));
+        for (long bits = pieces; bits != 0; bits &= bits - 1) {
+            positions.add( positionOf( Long.numberOfTrailingZeros( bits ) ) );
+        }
+        return positions;
+    }
+
+    /**
+     * Determines if any piece of the given team attacks a square, looking outward from the square
+     * along the knight, king, and pawn offsets and the eight sliding rays rather than generating
+     * the attacking team's moves.  The square itself may be empty or hold a piece of either team.
+     *
+     * @param position the square to test
+     * @param byColor the attacking team
+     * @return True if a piece of team byColor could capture on position
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor byColor) {
+        return isSquareAttacked( squareIndex( position ), byColor );
+    }
+
+    boolean isSquareAttacked(int square, ChessGame.TeamColor byColor) {
+        return isSquareAttacked( square, byColor, getOccupancy() );
+    }
+
+    /**
+     * Same as isSquareAttacked, but with sliding pieces blocked by the given occupancy rather than the
+     * board's, IE to ask whether a square would be attacked once some piece has moved out of the way
+     */
+    boolean isSquareAttacked(int square, ChessGame.TeamColor byColor, long occupied) {
+        // a pawn attacks the square from wherever a pawn of the other team on that square would attack
+        int defender = 1 - byColor.ordinal();
+        if ((AttackTables.PAWN_ATTACKS[defender][square] & getPieceBitboard( byColor, ChessPiece.PieceType.PAWN )) != 0) {
+            return true;
+        }
+        if ((AttackTables.KNIGHT_ATTACKS[square] & getPieceBitboard( byColor, ChessPiece.PieceType.KNIGHT )) != 0) {
+            return true;
+        }
+        if ((AttackTables.KING_ATTACKS[square] & getPieceBitboard( byColor, ChessPiece.PieceType.KING )) != 0) {
+            return true;
+        }
+        return isAttackedBySliders( square, byColor, occupied );
+    }
+
+    /**
+     * @return True if a bishop, rook or queen of team byColor reaches the square, given the occupancy
+     */
+    boolean isAttackedBySliders(int square, ChessGame.TeamColor byColor, long occupied) {
+        long queens = getPieceBitboard( byColor, ChessPiece.PieceType.QUEEN );
+        long diagonalSliders = getPieceBitboard( byColor, ChessPiece.PieceType.BISHOP ) | queens;
+        long perpendicularSliders = getPieceBitboard( byColor, ChessPiece.PieceType.ROOK ) | queens;
+        return firstAttackersAlongRays(diagonalSliders, occupied, square, AttackTables.FIRST_DIAGONAL) != 0
+                || firstAttackersAlongRays(perpendicularSliders, occupied, square, AttackTables.FIRST_PERPENDICULAR) != 0;
+    }
+
+    /**
+     * Finds every piece of a team attacking a square
+     *
+     * @return mask of the squares of team byColor's pieces that could capture on square
+     */
+    long attackersOf(int square, ChessGame.TeamColor byColor) {
+        int defender = 1 - byColor.ordinal();
+        long attackers = (AttackTables.PAWN_ATTACKS[defender][square] & getPieceBitboard( byColor, ChessPiece.PieceType.PAWN ))
+                | (AttackTables.KNIGHT_ATTACKS[square] & getPieceBitboard( byColor, ChessPiece.PieceType.KNIGHT ))
+                | (AttackTables.KING_ATTACKS[square] & getPieceBitboard( byColor, ChessPiece.PieceType.KING ));
+        long queens = getPieceBitboard( byColor, ChessPiece.PieceType.QUEEN );
+        long occupied = getOccupancy();
+        attackers |= firstAttackersAlongRays(getPieceBitboard( byColor, ChessPiece.PieceType.BISHOP ) | queens,
+                occupied, square, AttackTables.FIRST_DIAGONAL);
+        attackers |= firstAttackersAlongRays(getPieceBitboard( byColor, ChessPiece.PieceType.ROOK ) | queens,
+                occupied, square, AttackTables.FIRST_PERPENDICULAR);
+        return attackers;
+    }
+
+    /**
+     * walks each of four rays outward until the first occupied square and collects that square if it
+     * holds one of the given sliding attackers
+     */
+    private static long firstAttackersAlongRays(long attackers, long occupied, int square, int firstDirection) {
+        if (attackers == 0) {
+            return 0;
+        }
+        long found = 0;
+        for (int direction = firstDirection; direction < firstDirection + 4; direction++) {
+            if ((AttackTables.RAY_MASKS[direction][square] & attackers) == 0) {
+                // no attacker anywhere along this ray
+                continue;
+            }
+            for (int target : AttackTables.RAYS[direction][square]) {
+                long bit = 1L << target;
+                if ((occupied & bit) != 0) {
+                    found |= attackers & bit;
+                    break;
+                }
+            }
+        }
+        return found;
     }
 
     /**
@@ -55,33 +370,50 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        // set up the black pieces
-        squares[7][0] = new ChessPiece( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        squares[7][1] = new ChessPiece( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][2] = new ChessPiece( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][3] = new ChessPiece( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        squares[7][4] = new ChessPiece( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        squares[7][5] = new ChessPiece( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][6] = new ChessPiece( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][7] = new ChessPiece( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        for (int col=0; col < 8; col++){
-            squares[6][col] = new ChessPiece( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        }
-
-        // ditto for white pieces
-        squares[0][0] = new ChessPiece( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        squares[0][1] = new ChessPiece( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][2] = new ChessPiece( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][3] = new ChessPiece( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        squares[0][4] = new ChessPiece( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        squares[0][5] = new ChessPiece( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][6] = new ChessPiece( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][7] = new ChessPiece( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        for (int col=0; col < 8; col++){
-            squares[1][col] = new ChessPiece( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorOccupancy, 0L);
+        zobristKey = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+
+        ChessPiece.PieceType[] backRank = {
+                ChessPiece.PieceType.ROOK,
+                ChessPiece.PieceType.KNIGHT,
+                ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.QUEEN,
+                ChessPiece.PieceType.KING,
+                ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.KNIGHT,
+                ChessPiece.PieceType.ROOK };
+        for (int col = 0; col < 8; col++) {
+            // white occupies rows 1 and 2, black rows 7 and 8
+            placePiece( col, pieceIndex(ChessGame.TeamColor.WHITE, backRank[col]) );
+            placePiece( 8 + col, pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN) );
+            placePiece( 48 + col, pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN) );
+            placePiece( 56 + col, pieceIndex(ChessGame.TeamColor.BLACK, backRank[col]) );
         }
     }
 
+    /**
+     * @return the piece placement field of a FEN string for this board, e.g.
+     * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR" for the starting board
+     */
+    public String toFen() {
+        return Fen.formatPlacement( this );
+    }
+
+    /**
+     * Builds a board from the piece placement field of a FEN string (see toFen)
+     *
+     * @param placement the placement field, row 8 first
+     * @return the board it describes
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard fromFen(String placement) {
+        return Fen.parsePlacement( placement );
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -91,12 +423,13 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        // the occupancy masks are derived from the piece bitboards
+        return Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(zobristKey);
     }
 
     @Override
@@ -116,7 +449,7 @@ public class ChessBoard {
             for (int col = 1; col <= 8; col++){
                 toPrintOut.append('|');
                 String myStr = " ";
-                ChessPosition mySquare = new ChessPosition(row, col);
+                ChessPosition mySquare = ChessPosition.of(row, col);
 
                 if ((getPiece(mySquare) != null) && (getPiece(mySquare).getTeamColor() == ChessGame.TeamColor.WHITE)){
                     myStr = pieceToChar.get( getPiece(mySquare).getPieceType() );
@@ -0,0 +1,98 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Serializes a ChessBoard as its 12 piece bitboards, e.g. {"bitboards":[...]}.
+ * <p>
+ * Boards saved before the bitboard representation were written by reflection as
+ * {"squares":[[...],...]} (an 8x8 array of pieces or nulls); those are still accepted when reading
+ * so previously stored games keep loading.
+ */
+final class ChessBoardTypeAdapter extends TypeAdapter<ChessBoard> {
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("bitboards");
+        out.beginArray();
+        for (long bitboard : board.pieceBitboards) {
+            out.value(bitboard);
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessBoard board = new ChessBoard();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "bitboards" -> readBitboards(in, board);
+                case "squares" -> readLegacySquares(in, board);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return board;
+    }
+
+    private void readBitboards(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        int index = 0;
+        while (in.hasNext()) {
+            long bitboard = in.nextLong();
+            if (index >= ChessBoard.NUM_PIECE_BOARDS) {
+                throw new IOException("too many bitboards in serialized ChessBoard");
+            }
+            for (long bits = bitboard; bits != 0; bits &= bits - 1) {
+                board.placePiece(Long.numberOfTrailingZeros(bits), index);
+            }
+            index++;
+        }
+        in.endArray();
+    }
+
+    private void readLegacySquares(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        for (int row = 1; in.hasNext(); row++) {
+            in.beginArray();
+            for (int col = 1; in.hasNext(); col++) {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                ChessPiece.PieceType type = null;
+                ChessGame.TeamColor color = null;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "type" -> type = ChessPiece.PieceType.valueOf(in.nextString());
+                        case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                if (type != null && color != null) {
+                    board.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, type));
+                }
+            }
+            in.endArray();
+        }
+        in.endArray();
+    }
+}
@@ -1,6 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -14,12 +13,30 @@ public class ChessGame {
     private TeamColor whoseTurn;
     private ChessBoard board;
     private ChessMove prevMove;
+    // castling rights still held (see CastlingRights)
+    private int castlingRights;
+    // moves (by either team) since the last pawn move or capture, for the fifty-move rule
+    private int halfmoveClock;
+    // starts at 1 and goes up after each of black's moves
+    private int fullmoveNumber;
+    // keys of the positions since the last pawn move or capture, before the current one
+    private PositionHistory history;
+    // status of the team to move, set by makeMove; null until someone asks if the position came about otherwise
+    private GameStatus status;
+    // legal moves of each team's pieces, indexed by TeamColor.ordinal(); filled in lazily by legalMoves
+    private transient LegalMoves[] legalMoveCache;
+    // legal moves by position, shared by every game in the process; null unless someone sets one
+    private static volatile PositionCache sharedPositionCache;
 
     public ChessGame() {
         this.whoseTurn = TeamColor.WHITE;
         this.board = new ChessBoard();
         this.board.resetBoard();
         this.prevMove = null;
+        this.castlingRights = CastlingRights.ALL;
+        this.halfmoveClock = 0;
+        this.fullmoveNumber = 1;
+        this.history = new PositionHistory();
 
     }
 
@@ -28,6 +45,11 @@ public class ChessGame {
         this.board = new ChessBoard( original.getBoard() );
         this.prevMove = original.getPrevMove();
         this.prevMove = original.getPrevMove();
+        this.castlingRights = original.castlingRights;
+        this.halfmoveClock = original.halfmoveClock;
+        this.fullmoveNumber = original.fullmoveNumber;
+        this.history = new PositionHistory( original.history );
+        this.status = original.status;
     }
 
     /**
@@ -44,6 +66,8 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.whoseTurn = team;
+        invalidateLegalMoves();
+        this.status = null;
     }
 
     @Override
@@ -57,7 +81,74 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(whoseTurn, board);
+        // equals ignores the previous move, so leave en passant out of the hash
+        long key = board == null ? 0L : board.getZobristKey();
+        if (whoseTurn == TeamColor.BLACK){
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        return Long.hashCode(key);
+    }
+
+    /**
+     * Gets a 64-bit Zobrist key identifying this position: the pieces on the board, whose turn it
+     * is, the castling rights, and the file of any en passant capture the team to move could make.  The board keeps its
+     * part of the key current as moves are made, so this is a handful of XORs rather than a pass
+     * over the board.  Keys are the same from one run to the next, so they may be stored.
+     *
+     * @return the position's key
+     */
+    public long positionKey() {
+        long key = board.getZobristKey();
+        if (whoseTurn == TeamColor.BLACK){
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        key ^= Zobrist.CASTLING[castlingRights];
+        int enPassantFile = enPassantFile();
+        if (enPassantFile >= 0){
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantFile];
+        }
+        return key;
+    }
+
+    /**
+     * Finds the file of the pawn that just moved two spaces, if the team to move has a pawn beside it
+     * that could capture it en passant.  Positions where the capture is not actually available hash
+     * the same as if the pawn had moved one space at a time.
+     *
+     * @return file (0 -- 7) of the pawn that can be captured en passant, or -1 if there is none
+     */
+    private int enPassantFile(){
+        int target = enPassantTarget( whoseTurn );
+        if (target < 0){
+            return -1;
+        }
+        // whether one of our pawns attacks the square the enemy pawn passed over
+        TeamColor enemyColor = whoseTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        long capturers = AttackTables.PAWN_ATTACKS[enemyColor.ordinal()][target]
+                & board.getPieceBitboard( whoseTurn, ChessPiece.PieceType.PAWN );
+        return capturers == 0 ? -1 : (target & 7);
+    }
+
+    /**
+     * Determines where a pawn of the given team could capture en passant; checks if an opposing pawn
+     * just moved two spaces, and if so returns the square it passed over
+     *
+     * @param teamColor the team that would capture
+     * @return the square (0 -- 63) a capturing pawn would move to, or -1 if en passant is not possible
+     */
+    private int enPassantTarget(TeamColor teamColor){
+        if (prevMove == null){
+            return -1;
+        }
+        int from = ChessBoard.squareIndex( prevMove.getStartPosition() );
+        int to = ChessBoard.squareIndex( prevMove.getEndPosition() );
+        TeamColor enemyColor = teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        if ((Math.abs(to - from) != 16)
+                || ((board.getPieceBitboard( enemyColor, ChessPiece.PieceType.PAWN ) & (1L << to)) == 0)){
+            return -1;
+        }
+        int passedSquare = (from + to) / 2;
+        return (board.getOccupancy() & (1L << passedSquare)) == 0 ? passedSquare : -1;
     }
 
     /**
@@ -76,34 +167,220 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ArrayList<ChessMove> validMoves = new ArrayList<ChessMove>();
-
-        if (this.getBoard().getPiece( startPosition ) == null){
+        ChessPiece piece = this.getBoard().getPiece( startPosition );
+        if (piece == null){
             // IE there is no piece at this square
             return null;
         }
+        int square = ChessBoard.squareIndex( startPosition );
+        LegalMoves legal = legalMoves( piece.getTeamColor() );
+        return legal.moves.toChessMoves( legal.squareStart[square], legal.squareStart[square + 1] );
+    }
 
-        if (this.getBoard().getPiece( startPosition ) != null){
-            ArrayList<ChessMove> possibleMoves = (ArrayList<ChessMove>) this.getBoard()
-                                                                            .getPiece( startPosition )
-                                                                            .pieceMoves( this.getBoard(), startPosition);
-            for (ChessMove move: possibleMoves){
-                // see if the move would place the king in danger of check
-                if (willMoveResultInCheck( this.getBoard(), move)){
-                    continue;
-                }
-                else {
-                    validMoves.add(move);
+    /**
+     * Same as validMoves(startPosition), but appends the moves to a caller-supplied buffer as packed
+     * ints (see MoveList) instead of allocating a ChessMove per move.  Nothing is added if there is no
+     * piece at startPosition.
+     *
+     * @param startPosition the piece to get valid moves for
+     * @param moves buffer the valid moves are appended to
+     */
+    public void validMoves(ChessPosition startPosition, MoveList moves) {
+        ChessPiece piece = this.getBoard().getPiece( startPosition );
+        if (piece == null){
+            return;
+        }
+        int square = ChessBoard.squareIndex( startPosition );
+        LegalMoves legal = legalMoves( piece.getTeamColor() );
+        for (int i = legal.squareStart[square]; i < legal.squareStart[square + 1]; i++){
+            moves.add( legal.moves.get( i ) );
+        }
+    }
+
+    /**
+     * Gets every legal move of a team's pieces, generated in one pass over the team's pieces (and
+     * shared with validMoves, so asking for both costs a single generation)
+     *
+     * @param teamColor the team whose moves to get
+     * @return all of the team's valid moves, empty if it has none
+     */
+    public Collection<ChessMove> allValidMoves(TeamColor teamColor) {
+        return legalMoves( teamColor ).moves.toChessMoves();
+    }
+
+    /**
+     * Same as allValidMoves(teamColor), but appends the moves to a caller-supplied buffer as packed ints
+     *
+     * @param teamColor the team whose moves to get
+     * @param moves buffer the valid moves are appended to
+     */
+    public void allValidMoves(TeamColor teamColor, MoveList moves) {
+        MoveList legal = legalMoves( teamColor ).moves;
+        for (int i = 0; i < legal.size(); i++){
+            moves.add( legal.get( i ) );
+        }
+    }
+
+    /**
+     * Determines if a packed move (see MoveList) is legal for the team whose turn it is.  Uses the
+     * cached moves if they are current, and otherwise generates just the moves of the piece on the
+     * move's start square, so checking a handful of candidate moves costs far less than generating
+     * them all.
+     *
+     * @param move the move to check, packed as in MoveList
+     * @param moves scratch buffer; cleared and overwritten
+     * @return True if the team to move can make the move
+     */
+    public boolean isLegalMove(int move, MoveList moves) {
+        int from = MoveList.from( move );
+        moves.clear();
+        if ((board.getOccupancy( whoseTurn ) & (1L << from)) == 0){
+            return false;
+        }
+        int enPassantTarget = enPassantTarget( whoseTurn );
+        LegalMoves cached = legalMoveCache == null ? null : legalMoveCache[whoseTurn.ordinal()];
+        if ((cached != null) && cached.isFor( board, castlingRights, enPassantTarget )){
+            for (int i = cached.squareStart[from]; i < cached.squareStart[from + 1]; i++){
+                if (cached.moves.get( i ) == move){
+                    return true;
                 }
             }
+            return false;
+        }
+        new LegalMoveGenerator( board, whoseTurn, enPassantTarget, castlingRights ).addMoves( from, moves );
+        return moves.contains( move );
+    }
+
+    /**
+     * Determines if a team has any legal move at all.  Stops at the first legal move found rather
+     * than generating them all, unless they have already been generated for this position.
+     *
+     * @param teamColor the team to look at
+     * @return True if the team can make at least one move
+     */
+    public boolean hasAnyLegalMove(TeamColor teamColor) {
+        int enPassantTarget = enPassantTarget( teamColor );
+        LegalMoves cached = legalMoveCache == null ? null : legalMoveCache[teamColor.ordinal()];
+        if ((cached != null) && cached.isFor( board, castlingRights, enPassantTarget )){
+            return !cached.moves.isEmpty();
+        }
+        return new LegalMoveGenerator( board, teamColor, enPassantTarget, castlingRights ).hasAnyMove();
+    }
+
+    /**
+     * The legal moves of every piece of one team, grouped by start square, along with the position
+     * they were generated for.  Moves from square s are moves[squareStart[s] .. squareStart[s + 1]).
+     * Kept for the life of the game and filled in again when the position changes, so asking for
+     * moves after each move allocates nothing.
+     */
+    private static final class LegalMoves {
+        final MoveList moves = new MoveList();
+        final int[] squareStart = new int[65];
+        // null when the moves are stale
+        ChessBoard board;
+        long boardKey;
+        int castlingRights;
+        int enPassantTarget;
+        boolean inCheck;
+
+        boolean isFor(ChessBoard board, int castlingRights, int enPassantTarget) {
+            return (this.board == board) && (this.boardKey == board.getZobristKey())
+                    && (this.castlingRights == castlingRights) && (this.enPassantTarget == enPassantTarget);
+        }
+    }
+
+    /**
+     * marks both teams' cached moves stale, keeping their buffers to be filled in again
+     */
+    private void invalidateLegalMoves(){
+        if (legalMoveCache == null){
+            return;
+        }
+        for (LegalMoves legal : legalMoveCache){
+            if (legal != null){
+                legal.board = null;
+            }
+        }
+    }
 
-            if (isEnPassantPossible( startPosition )){
-                ChessMove enPassant = formEnPassantMove( startPosition );
-                validMoves.add( enPassant );
+    /**
+     * Gets the legal moves of all of a team's pieces in the current position, generating them only if
+     * the position has changed since they were last asked for.  The cache is checked against the
+     * board's Zobrist key, so it also notices pieces added or removed through getBoard().
+     *
+     * @param teamColor the team whose moves to get
+     * @return the team's legal moves; owned by this game, so do not modify
+     */
+    private LegalMoves legalMoves(TeamColor teamColor){
+        if (legalMoveCache == null){
+            legalMoveCache = new LegalMoves[2];
+        }
+        int enPassantTarget = enPassantTarget( teamColor );
+        LegalMoves legal = legalMoveCache[teamColor.ordinal()];
+        if ((legal != null) && legal.isFor( board, castlingRights, enPassantTarget )){
+            return legal;
+        }
+        if (legal == null){
+            legal = new LegalMoves();
+            legalMoveCache[teamColor.ordinal()] = legal;
+        }
+
+        legal.moves.clear();
+        PositionCache shared = sharedPositionCache;
+        long key = 0;
+        int cached = -1;
+        if (shared != null){
+            key = legalMovesKey( teamColor, enPassantTarget );
+            cached = shared.probe( key, board, teamColor, legal.moves, legal.squareStart );
+        }
+        if (cached >= 0){
+            legal.inCheck = cached == 1;
+        } else {
+            LegalMoveGenerator generator = new LegalMoveGenerator( board, teamColor, enPassantTarget, castlingRights );
+            generator.addAllMoves( legal.moves, legal.squareStart );
+            legal.inCheck = generator.isInCheck();
+            if (shared != null){
+                shared.store( key, board, teamColor, legal.moves, legal.squareStart, legal.inCheck );
             }
-            return validMoves;
         }
-        return null;
+        legal.board = board;
+        legal.boardKey = board.getZobristKey();
+        legal.castlingRights = castlingRights;
+        legal.enPassantTarget = enPassantTarget;
+        return legal;
+    }
+
+    /**
+     * identifies everything a team's legal moves depend on: the pieces, the team, the castling
+     * rights, and where the team could capture en passant
+     */
+    private long legalMovesKey(TeamColor teamColor, int enPassantTarget){
+        long key = board.getZobristKey() ^ Zobrist.CASTLING[castlingRights];
+        if (teamColor == TeamColor.BLACK){
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        if (enPassantTarget >= 0){
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantTarget & 7];
+        }
+        return key;
+    }
+
+    /**
+     * Shares one table of legal moves by position among every game in this process (see
+     * PositionCache), so a position one game has already worked out is read back rather than
+     * generated again by the others.  A server sets this once at startup; it is off by default.
+     *
+     * @param cache the table to share, or null to stop sharing
+     */
+    public static void setSharedPositionCache(PositionCache cache) {
+        sharedPositionCache = cache;
+    }
+
+    /**
+     * @return the table set by setSharedPositionCache, or null
+     */
+    public static PositionCache getSharedPositionCache() {
+        return sharedPositionCache;
     }
 
     /**
@@ -134,131 +411,232 @@ public class ChessGame {
                                                             move.getEndPosition().toString()));
         }
 
-        Collection<ChessMove> possibleMoves = this.getBoard()
-                                                  .getPiece( move.getStartPosition() )
-                                                  .pieceMoves( this.getBoard(), move.getStartPosition());
-        if (this.isEnPassantPossible( move.getStartPosition() )) {
-            ChessMove enPassant = formEnPassantMove(move.getStartPosition());
-            if (enPassant != null) {
-                possibleMoves.add(enPassant);
-            }
+        int packedMove = MoveList.encode( move );
+        if (legalMoves( this.getTeamTurn() ).moves.contains( packedMove )){
+            // make the move on the actual gameboard; this also removes a pawn captured en passant,
+            // records that the next team is up, and records the previous move
+            makeUncheckedMove( move );
+            this.status = computeStatus();
+            return;
+        }
+        // otherwise work out why the move is not legal
+        MoveList possibleMoves = new MoveList(32);
+        PieceMovesCalculator.generateMoves( this.getBoard(), move.getStartPosition(), possibleMoves );
+        int enPassantTarget = enPassantTarget( this.getTeamTurn() );
+        int from = MoveList.from( packedMove );
+        if ((enPassantTarget >= 0)
+                && (this.getBoard().getPiece( move.getStartPosition() ).getPieceType() == ChessPiece.PieceType.PAWN)
+                && ((AttackTables.PAWN_ATTACKS[this.getTeamTurn().ordinal()][from] & (1L << enPassantTarget)) != 0)) {
+            possibleMoves.add( MoveList.encode( from, enPassantTarget, null ) );
         }
 
-        if (! possibleMoves.contains( move ) ){
+        if (! possibleMoves.contains( packedMove ) ){
             throw new InvalidMoveException(String.format("%s is not a valid move for a %s",
                                                     move.toString(),
                                                     this.getBoard().getPiece( move.getStartPosition() ).toString()));
                                         }
-        // does not place its own team into check
-        // (or otherwise does not leave its own team in check)
-        ChessPiece.PieceType pieceType;
-        if (move.getPromotionPiece() != null){
-            pieceType = move.getPromotionPiece();
+        // the piece can make the move, but it is not legal, so it must
+        // place its own team into check (or otherwise not get its own team out of check)
+        throw new InvalidMoveException(String.format("Move %s would leave your team in check!", move.toString()));
+    }
+
+    /**
+     * Applies a move to this game in place without checking that it is legal.  The move is assumed
+     * to come from pieceMoves (or be an en passant capture) for the piece on its start square,
+     * which may belong to either team.  Afterward it is the other team's turn.
+     *
+     * @param move the move to apply
+     * @return a record that unmakeMove uses to restore the game to its state before the move
+     */
+    public MoveUndo makeUncheckedMove(ChessMove move) {
+        int packedMove = MoveList.encode( move );
+        long keyBefore = positionKey();
+        int boardUndo = board.makeMove( packedMove );
+
+        // a pawn move or capture can never be undone over the board, so no earlier position can recur
+        boolean pawnMoved = (boardUndo & 0xF) % 6 == ChessPiece.PieceType.PAWN.ordinal();
+        boolean captured = ((boardUndo >>> 4) & 0xF) != 0;
+        MoveUndo undo = new MoveUndo(move, packedMove, boardUndo, this.prevMove, this.whoseTurn,
+                this.castlingRights, this.halfmoveClock, (pawnMoved || captured) ? this.history : null);
+        if (pawnMoved || captured){
+            this.history = new PositionHistory();
+            this.halfmoveClock = 0;
         } else {
-            pieceType = this.getBoard().getPiece( move.getStartPosition() ).getPieceType();
+            this.history.push( keyBefore );
+            this.halfmoveClock++;
+        }
+        this.castlingRights = CastlingRights.afterMove( this.castlingRights, MoveList.from( packedMove ), MoveList.to( packedMove ) );
+        // the moved piece's index (bits 0-3) says which team moved
+        boolean blackMoved = (boardUndo & 0xF) >= 6;
+        if (blackMoved){
+            this.fullmoveNumber++;
         }
-        Boolean check = willMoveResultInCheck( this.getBoard(), move);
+        this.whoseTurn = blackMoved ? TeamColor.WHITE : TeamColor.BLACK;
+        this.prevMove = move;
+        invalidateLegalMoves();
+        this.status = null;
+        return undo;
+    }
 
-        if (! check){
-            if (isEnPassantPossible( move.getStartPosition() )){
-                this.getBoard().addPiece( this.getPrevMove().getEndPosition(), null);
-            }
-            // make the move on the actual gameboard
-            this.board.addPiece( move.getEndPosition(), new ChessPiece( this.getTeamTurn(), pieceType));
-            // and remove the piece from the starting square
-            this.board.addPiece( move.getStartPosition(), null);
-            // and record that the next team is up
-            this.setTeamTurn( this.getTeamTurn() == TeamColor.WHITE ? TeamColor.BLACK: TeamColor.WHITE );
-            // if you made an enpassant move, then the now extra copy of the captured pawn must be removed
-            // and record the previous move
-            this.setPrevMove( move );
+    /**
+     * Takes back the most recent move applied with makeUncheckedMove
+     *
+     * @param undo the record returned when the move was made
+     */
+    public void unmakeMove(MoveUndo undo) {
+        board.unmakeMove( undo.packedMove, undo.boardUndo );
+        this.whoseTurn = undo.previousTurn;
+        this.prevMove = undo.previousMove;
+        this.castlingRights = undo.previousCastlingRights;
+        this.halfmoveClock = undo.previousHalfmoveClock;
+        if ((undo.boardUndo & 0xF) >= 6){
+            this.fullmoveNumber--;
+        }
+        if (undo.previousHistory != null){
+            this.history = undo.previousHistory;
         } else {
-            throw new InvalidMoveException(String.format("Move %s would leave your team in check!", move.toString()));
+            this.history.pop();
         }
+        invalidateLegalMoves();
+        this.status = null;
+    }
 
+    /**
+     * Gets the status of the team whose turn it is.  makeMove works this out as part of every move,
+     * and it is saved along with the game, so this is normally just a field read.  Pieces placed
+     * directly on the board (through getBoard) are not noticed; call setBoard afterward.
+     *
+     * @return whether the team to move is free to move, in check, checkmated or stalemated
+     */
+    public GameStatus getStatus() {
+        if (this.status == null){
+            this.status = computeStatus();
+        }
+        return this.status;
     }
 
     /**
-     * Determines if a move will place the current team in check
-     * @param myBoard
-     * @param myMove
-     * @return True if the move would result in check of its own team
+     * works out the status of the team to move from its legal moves, which stay cached for validMoves
      */
-    private boolean willMoveResultInCheck( ChessBoard myBoard, ChessMove myMove){
-        ChessGame gameCopy = new ChessGame( this );
-        ChessPiece.PieceType pieceType;
-        TeamColor pieceColor = gameCopy.getTeamTurn();
-        if (myMove.getPromotionPiece() != null){
-            pieceType = myMove.getPromotionPiece();
+    private GameStatus computeStatus(){
+        LegalMoves legal = legalMoves( whoseTurn );
+        GameStatus.State state;
+        if (legal.moves.isEmpty()){
+            state = legal.inCheck ? GameStatus.State.CHECKMATE : GameStatus.State.STALEMATE;
+        } else if (getRepetitionCount() >= 3){
+            state = GameStatus.State.THREEFOLD_REPETITION;
+        } else if (halfmoveClock >= 100){
+            state = GameStatus.State.FIFTY_MOVE_RULE;
         } else {
-            pieceType = gameCopy.getBoard().getPiece( myMove.getStartPosition() ).getPieceType();
-            // necessary since you may want to test moves when it is the other team's turn
-            pieceColor = gameCopy.getBoard().getPiece( myMove.getStartPosition() ).getTeamColor();
-        }
-
-        // move the piece on the copy
-        gameCopy.getBoard().addPiece( myMove.getEndPosition(), new ChessPiece(pieceColor, pieceType));
-        // and remove the copy of the piece that just moved
-        gameCopy.getBoard().addPiece( myMove.getStartPosition(), null);
-
-        return gameCopy.isInCheck( pieceColor );
-    }
-
-    /**
-     * Determines if an en passant move is possible; checks if an opposing pawn just moved two spaces, passing a pawn
-     * @param startPosition
-     * @return True if en passant move would be possible
-     */
-    private boolean isEnPassantPossible( ChessPosition startPosition ) {
-
-        // check for en passant for pawns
-        if ((this.getPrevMove() != null) && (this.getBoard().getPiece(startPosition) != null)
-                && (this.getBoard().getPiece(startPosition).getPieceType() == ChessPiece.PieceType.PAWN)) {
-            // if a pawn
-            ChessPosition prevPawnStartPosition = this.getPrevMove().getStartPosition();
-            ChessPosition prevPawnEndPosition = this.getPrevMove().getEndPosition();
-            if ((this.getBoard().getPiece(prevPawnEndPosition) != null)
-                    && (this.getBoard().getPiece(prevPawnEndPosition).getPieceType() == ChessPiece.PieceType.PAWN)) {
-                // now check if this previously moved pawn jumped over the current pawn's capture square
-                if (Math.abs(prevPawnEndPosition.getRow() - prevPawnStartPosition.getRow()) == 2) {
-                    // then the previous pawn did move two spaces... now check if adjacent to your pawn at startPosition
-                    if ((Math.abs(startPosition.getColumn() - prevPawnEndPosition.getColumn()) == 1)
-                            && (startPosition.getRow() - prevPawnEndPosition.getRow() == 0)) {
-                        // then you should note that enpassant capture is possible this move!
-                        return true;
-                    }
-                }
-            }
+            state = legal.inCheck ? GameStatus.State.CHECK : GameStatus.State.NORMAL;
         }
-        return false;
+        return new GameStatus(state, whoseTurn);
     }
 
     /**
-     * Forms the ChessMove to move from startPosition to capture an opposing pawn en passant
-     * @param startPosition
-     * @return ChessMove from startPosition to the regular capture square without promotion piece
+     * @return moves (by either team) since the last pawn move or capture; the game is drawn at 100
      */
-    private ChessMove formEnPassantMove( ChessPosition startPosition ){
-        if (! isEnPassantPossible( startPosition )){
-            return null;
-        }
-        // then you should note that enpassant capture is possible this move!
-        int rowAdvancement = 0;
-        if (this.getBoard().getPiece( startPosition ).getTeamColor() == TeamColor.BLACK) {
-            rowAdvancement = -1;
-        } else if (this.getBoard().getPiece( startPosition ).getTeamColor() == TeamColor.WHITE) {
-            rowAdvancement = +1;
-        }
-        ChessPosition prevPawnStartPosition = this.getPrevMove().getStartPosition();
-        ChessPosition enPassantCapturePosition = new ChessPosition( startPosition.getRow() + rowAdvancement, prevPawnStartPosition.getColumn());
-        ChessMove enPassant = new ChessMove(startPosition, enPassantCapturePosition, null);
-        return enPassant;
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Counts how many times the current position has occurred, including now.  Positions are told
+     * apart by positionKey, so the count is a hash table lookup rather than a replay of the game.
+     *
+     * @return 1 the first time a position is reached, 3 when it has occurred three times
+     */
+    public int getRepetitionCount() {
+        return 1 + history.count( positionKey() );
+    }
+
+    /**
+     * @return number of the current full move (a white move and the black reply), starting at 1
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    void setClocks(int halfmoveClock, int fullmoveNumber) {
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.status = null;
+    }
+
+    /**
+     * @return the square the team to move could capture onto en passant, or -1
+     */
+    int getEnPassantTarget() {
+        return enPassantTarget( whoseTurn );
     }
 
-    private boolean canKillKing(ChessPosition positionOfKing, ArrayList<ChessMove> enemyMoves){
-        final ChessPosition kingPosition = new ChessPosition(positionOfKing.getRow(), positionOfKing.getColumn());
-        return  enemyMoves.stream().anyMatch(move -> move.getEndPosition().equals( kingPosition ));
+    /**
+     * Describes this game in Forsyth-Edwards Notation: the board, team to move, castling rights,
+     * en passant square, halfmove clock and fullmove number, in one short line of text
+     *
+     * @return the FEN string, e.g. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"
+     */
+    public String toFen() {
+        return Fen.format( this );
+    }
+
+    /**
+     * Sets up a game from a FEN string (see toFen).  The halfmove clock and fullmove number may be
+     * left off, in which case they are 0 and 1.  Nothing is known of the moves before the position,
+     * so earlier positions do not count toward threefold repetition.
+     *
+     * @param fen the position to set up
+     * @return a new game in that position
+     * @throws IllegalArgumentException if fen is not a valid FEN string
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parse( fen );
+    }
+
+    /**
+     * Encodes this game in a compact, versioned binary form for storage: a few dozen bytes rather
+     * than the kilobytes of its JSON
+     *
+     * @return the encoded game, which fromBytes turns back into an equal game
+     */
+    public byte[] toBytes() {
+        return GameCodec.encode( this );
+    }
+
+    /**
+     * Reads a game written by toBytes, including its status and repetition history
+     *
+     * @param bytes the encoded game
+     * @return a new game in the encoded state
+     * @throws IllegalArgumentException if bytes is not an encoded game
+     */
+    public static ChessGame fromBytes(byte[] bytes) {
+        return GameCodec.decode( bytes );
+    }
+
+    PositionHistory getHistory() {
+        return history;
+    }
+
+    void setHistory(PositionHistory history) {
+        this.history = history;
+        this.status = null;
     }
+
+    void setStatus(GameStatus status) {
+        this.status = status;
+    }
+
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    void setCastlingRights(int castlingRights) {
+        this.castlingRights = castlingRights;
+        invalidateLegalMoves();
+        this.status = null;
+    }
+
     /**
      * Determines if the given team is in check
      *
@@ -267,59 +645,13 @@ public class ChessGame {
      */
     public boolean isInCheck(TeamColor teamColor) {
         // a team is in check if its king lies in the path of travel of any of the other team's pieces
-        ArrayList<ChessPiece> enemyPieces = new ArrayList<ChessPiece>();
-
-        // find your team's king on the board
-        ChessPiece comparisonKing = new ChessPiece( teamColor, ChessPiece.PieceType.KING);  // for later comparison
-        ChessPosition myKingPosition = null;
-        for (int row=1; row<=8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition square = new ChessPosition(row, col);
-                if ((this.getBoard().getPiece(square) != null) && (this.getBoard().getPiece(square).equals(comparisonKing))) {
-                    myKingPosition = square;
-                }
-            }
-        }
-        // now look at each enemy piece's possible moves.  Can any attack your King?
-        for (int row=1; row<=8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition square = new ChessPosition(row, col);
-                if ((this.getBoard().getPiece( square ) != null) && (this.getBoard().getPiece( square ).getTeamColor() != teamColor))  {
-                    // then there is an enemy piece in the square
-                    // and we should check to see if it can attack the king
-                    ChessPiece enemyPiece = this.getBoard().getPiece( square );
-                    ArrayList<ChessMove> enemyMoves = (ArrayList<ChessMove>) enemyPiece.pieceMoves( this.getBoard(), square );
-                    boolean canCheckKing = canKillKing(myKingPosition, enemyMoves);
-                    if (canCheckKing){
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * examines a team piece by piece to see if there exists any moves on the current board
-     * not resulting in check
-     * @param teamColor
-     * @return true if the team can move; false otherwise
-     */
-    private boolean checkIfAnyValidMoves(TeamColor teamColor){
-        for (int row=1; row<=8; row++){
-            for (int col=1; col<=8; col++){
-                ChessPosition square = new ChessPosition(row, col);
-                if ((this.getBoard().getPiece( square ) != null) && (this.getBoard().getPiece( square ).getTeamColor() == teamColor)){
-                    ArrayList<ChessMove> validMoves = (ArrayList<ChessMove>) this.validMoves( square );
-                    if ((validMoves != null) && (validMoves.size() > 0)){
-                        // null returned if there are no moves from this square
-                        // so if we do find a valid move, then we are not in checkmate
-                        return false;
-                    }
-                }
-            }
+        ChessPosition kingPosition = this.getBoard().getKingPosition( teamColor );
+        if (kingPosition == null){
+            // no king on the board, so nothing to put in check
+            return false;
         }
-        return true;
+        TeamColor enemyColor = teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        return this.getBoard().isSquareAttacked( kingPosition, enemyColor );
     }
 
     /**
@@ -330,12 +662,7 @@ public class ChessGame {
      */
     public boolean isInCheckmate(TeamColor teamColor) {
         // in check mate if in check AND no valid moves
-        if (isInCheck( teamColor )){
-            // now look to see if you have any valid moves
-            // start by finding your team's pieces
-            return checkIfAnyValidMoves(teamColor);
-        }
-        return false;  // check mate requires check
+        return isInCheck( teamColor ) && !hasAnyLegalMove( teamColor );
     }
 
     /**
@@ -347,12 +674,7 @@ public class ChessGame {
      */
     public boolean isInStalemate(TeamColor teamColor) {
         // in stalemate if not in check AND no valid moves
-        if (!isInCheck( teamColor )){
-            // now look to see if you have any valid moves
-            // start by finding your team's pieces
-            return checkIfAnyValidMoves(teamColor);
-        }
-        return false;  // stalemate requires not in check
+        return !isInCheck( teamColor ) && !hasAnyLegalMove( teamColor );
     }
 
     /**
@@ -362,6 +684,12 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        // nothing is known of how the pieces got there, so start the game's history over
+        this.castlingRights = CastlingRights.inferFrom( board );
+        this.halfmoveClock = 0;
+        this.history = new PositionHistory();
+        invalidateLegalMoves();
+        this.status = null;
     }
 
     /**
@@ -380,5 +708,7 @@ public class ChessGame {
 
     public void setPrevMove(ChessMove prevMove) {
         this.prevMove = prevMove;
+        invalidateLegalMoves();
+        this.status = null;
     }
 }
@@ -1,5 +1,7 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Objects;
 
 /**
@@ -8,12 +10,20 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessMoveTypeAdapter.class)
 public class ChessMove {
 
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
 
+    // filled in lazily: one slot per (start square, end square, promotion piece or none).
+    // ChessMove is immutable with final fields, so a racing thread can at worst create a duplicate.
+    private static final int PROMOTION_SLOTS = ChessPiece.PieceType.values().length + 1;
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * PROMOTION_SLOTS];
+    // indexed by PieceType.ordinal()
+    private static final String PROMOTION_LETTERS = "kqbnrp";
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -21,6 +31,107 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Returns the canonical instance for a move rather than allocating a new one
+     *
+     * @return the shared move, or a new one if either position is off the board
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!onBoard(startPosition) || !onBoard(endPosition)) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(ChessBoard.squareIndex(startPosition), ChessBoard.squareIndex(endPosition), promotionPiece);
+    }
+
+    /**
+     * @return the shared move between two board bit indexes (0 -- 63)
+     */
+    static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        int slot = (from * 64 + to) * PROMOTION_SLOTS + (promotionPiece == null ? 0 : promotionPiece.ordinal() + 1);
+        ChessMove move = MOVES[slot];
+        if (move == null) {
+            move = new ChessMove(ChessPosition.ofSquare(from), ChessPosition.ofSquare(to), promotionPiece);
+            MOVES[slot] = move;
+        }
+        return move;
+    }
+
+    /**
+     * Packs this move into an int as MoveList does: start square in bits 0-5, end square in bits
+     * 6-11, promotion piece in bits 12-14.  The result fits in 15 bits, so a short holds it too.
+     * Only moves between squares on the board can be packed.
+     *
+     * @return the packed move
+     */
+    public int encode() {
+        return MoveList.encode(this);
+    }
+
+    /**
+     * @param packed a move packed by encode
+     * @return the shared move
+     * @throws IllegalArgumentException if packed is not a packed move
+     */
+    public static ChessMove decode(int packed) {
+        if ((packed & ~0x7FFF) != 0 || ((packed >>> 12) & 0x7) > ChessPiece.PieceType.values().length) {
+            throw new IllegalArgumentException("Not a packed move: " + packed);
+        }
+        return MoveList.toChessMove(packed);
+    }
+
+    /**
+     * Writes this move as its start and end squares followed by the promotion piece, if any:
+     * "e2e4", or "e7e8q" for a pawn promoting to a queen
+     *
+     * @return the move in long algebraic notation
+     */
+    public String toNotation() {
+        String notation = startPosition.toNotation() + endPosition.toNotation();
+        if (promotionPiece == null) {
+            return notation;
+        }
+        return notation + PROMOTION_LETTERS.charAt(promotionPiece.ordinal());
+    }
+
+    /**
+     * Reads a move written by toNotation; upper case letters are accepted as well
+     *
+     * @param notation the move, e.g. "e7e8q"
+     * @return the shared move
+     * @throws IllegalArgumentException if notation is not a move in that form
+     */
+    public static ChessMove fromNotation(String notation) {
+        if (notation == null || (notation.length() != 4 && notation.length() != 5)) {
+            throw new IllegalArgumentException("Expected a move like e2e4 or e7e8q: " + notation);
+        }
+        int from = parseSquare(notation, 0);
+        int to = parseSquare(notation, 2);
+        ChessPiece.PieceType promotion = null;
+        if (notation.length() == 5) {
+            int type = PROMOTION_LETTERS.indexOf(Character.toLowerCase(notation.charAt(4)));
+            if (type < 0) {
+                throw new IllegalArgumentException("Unknown promotion piece in move: " + notation);
+            }
+            promotion = ChessPiece.PieceType.values()[type];
+        }
+        return of(from, to, promotion);
+    }
+
+    private static int parseSquare(String notation, int index) {
+        int col = Character.toLowerCase(notation.charAt(index)) - 'a';
+        int row = notation.charAt(index + 1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            throw new IllegalArgumentException("Expected a square from a1 to h8 in move: " + notation);
+        }
+        return row * 8 + col;
+    }
+
+    static boolean onBoard(ChessPosition position) {
+        return (position.getRow() >= 1) && (position.getRow() <= 8)
+                && (position.getColumn() >= 1) && (position.getColumn() <= 8);
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -66,6 +177,7 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        return 31 * (31 * Objects.hashCode(startPosition) + Objects.hashCode(endPosition))
+                + Objects.hashCode(promotionPiece);
     }
 }
@@ -0,0 +1,80 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Serializes a ChessMove as a short token in long algebraic notation, e.g. "e7e8q" (see
+ * ChessMove.toNotation), and reads back the shared instance from ChessMove.of.  Moves are also read
+ * in the {"startPosition":...,"endPosition":...,"promotionPiece":...} layout Gson's reflection
+ * produced, which older clients send and older games were saved with; a move with a position off
+ * the board has no token, so it is still written that way.
+ */
+final class ChessMoveTypeAdapter extends TypeAdapter<ChessMove> {
+
+    private final ChessPositionTypeAdapter positionAdapter = new ChessPositionTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessMove move) throws IOException {
+        if (move == null) {
+            out.nullValue();
+            return;
+        }
+        if (ChessMove.onBoard(move.getStartPosition()) && ChessMove.onBoard(move.getEndPosition())) {
+            out.value(move.toNotation());
+            return;
+        }
+        out.beginObject();
+        out.name("startPosition");
+        positionAdapter.write(out, move.getStartPosition());
+        out.name("endPosition");
+        positionAdapter.write(out, move.getEndPosition());
+        if (move.getPromotionPiece() != null) {
+            out.name("promotionPiece").value(move.getPromotionPiece().name());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ChessMove read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (in.peek() == JsonToken.STRING) {
+            String notation = in.nextString();
+            try {
+                return ChessMove.fromNotation(notation);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        ChessPosition start = null;
+        ChessPosition end = null;
+        ChessPiece.PieceType promotion = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "startPosition" -> start = positionAdapter.read(in);
+                case "endPosition" -> end = positionAdapter.read(in);
+                case "promotionPiece" -> {
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        promotion = ChessPiece.PieceType.valueOf(in.nextString());
+                    }
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (start == null || end == null) {
+            throw new IOException("a serialized ChessMove needs both a startPosition and an endPosition");
+        }
+        return ChessMove.of(start, end, promotion);
+    }
+}
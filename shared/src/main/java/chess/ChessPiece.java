@@ -1,9 +1,8 @@
 package chess;
 
-import java.util.ArrayList;
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -11,15 +10,43 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPieceTypeAdapter.class)
 public class ChessPiece {
-    public PieceType type;
-    public ChessGame.TeamColor pieceColor;
+    // final so that the shared instances handed out by of() can never be changed
+    private final PieceType type;
+    private final ChessGame.TeamColor pieceColor;
+
+    // the only 12 distinct pieces, indexed by ChessBoard.pieceIndex(color, type)
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[ChessBoard.pieceIndex(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Returns the canonical instance for a team and piece type rather than allocating a new piece
+     *
+     * @return the shared piece of the given team and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[ChessBoard.pieceIndex(pieceColor, type)];
+    }
+
+    /**
+     * @return the shared piece for an index into the board's piece bitboards
+     */
+    static ChessPiece ofIndex(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+
     public ChessPiece(ChessPiece original){
         this.pieceColor = original.getTeamColor();
         this.type = original.getPieceType();
@@ -44,7 +71,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, pieceColor);
+        return 31 * pieceColor.hashCode() + type.hashCode();
     }
 
     /**
@@ -82,27 +109,18 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
+        MoveList moves = new MoveList(32);
+        pieceMoves(board, myPosition, moves);
+        return moves.toChessMoves();
+    }
 
-        PieceMovesCalculator movesCalculator = new PieceMovesCalculator(board, myPosition);
-
-        if (board.getPiece( myPosition ).getPieceType() == PieceType.BISHOP){
-            return movesCalculator.calculateBishopMoves();
-        }
-        if (board.getPiece( myPosition ).getPieceType() == PieceType.ROOK){
-            return movesCalculator.calculatePerpendicularMoves();
-        }
-        if (board.getPiece( myPosition ).getPieceType() == PieceType.QUEEN){
-            return movesCalculator.calculateQueenMoves();
-        }
-        if (board.getPiece( myPosition ).getPieceType() == PieceType.KING){
-            return movesCalculator.calculateKingMoves();
-        }
-        if (board.getPiece( myPosition ).getPieceType() == PieceType.PAWN){
-            return movesCalculator.calculatePawnMoves();
-        }
-        if (board.getPiece( myPosition ).getPieceType() == PieceType.KNIGHT){
-            return movesCalculator.calculateKnightMoves();
-        }
-        return List.of();
+    /**
+     * Same as pieceMoves(board, myPosition), but appends the moves to a caller-supplied buffer
+     * as packed ints (see MoveList) instead of allocating a ChessMove per move
+     *
+     * @param moves buffer the moves are appended to
+     */
+    public void pieceMoves(ChessBoard board, ChessPosition myPosition, MoveList moves) {
+        PieceMovesCalculator.generateMoves(board, myPosition, moves);
     }
 }
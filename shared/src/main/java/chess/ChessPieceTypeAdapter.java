@@ -0,0 +1,50 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Serializes a ChessPiece as {"type":...,"pieceColor":...}, the same layout Gson's reflection
+ * produced, but reads back the shared instance from ChessPiece.of instead of allocating a new piece.
+ */
+final class ChessPieceTypeAdapter extends TypeAdapter<ChessPiece> {
+
+    @Override
+    public void write(JsonWriter out, ChessPiece piece) throws IOException {
+        if (piece == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("type").value(piece.getPieceType().name());
+        out.name("pieceColor").value(piece.getTeamColor().name());
+        out.endObject();
+    }
+
+    @Override
+    public ChessPiece read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessPiece.PieceType type = null;
+        ChessGame.TeamColor color = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "type" -> type = ChessPiece.PieceType.valueOf(in.nextString());
+                case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (type == null || color == null) {
+            throw new IOException("a serialized ChessPiece needs both a type and a pieceColor");
+        }
+        return ChessPiece.of(color, type);
+    }
+}
@@ -1,8 +1,8 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
 
 /**
  * Represents a single square position on a chess board
@@ -10,16 +10,45 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPositionTypeAdapter.class)
 public class ChessPosition {
 
     private final int row;
     private final int col;
 
+    // one shared instance per square, indexed like ChessBoard bit indexes: (row - 1) * 8 + (col - 1)
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition((square >>> 3) + 1, (square & 7) + 1);
+        }
+    }
+
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Returns the canonical instance for a square rather than allocating a new position.
+     * Positions are immutable, so the shared instances are safe to hand out anywhere.
+     *
+     * @return the shared position for (row, col), or a new one if (row, col) is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if ((row < 1) || (row > 8) || (col < 1) || (col > 8)) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @return the shared position for a board bit index (0 -- 63)
+     */
+    static ChessPosition ofSquare(int square) {
+        return SQUARES[square];
+    }
+
     public ChessPosition(String pos){
         // assumes non-null and proper length (letter + number for colRow notation)
         char colTemp = Character.toUpperCase(pos.charAt(0));
@@ -57,6 +86,13 @@ public class ChessPosition {
         return col;
     }
 
+    /**
+     * @return the square in algebraic notation, e.g. "e4"
+     */
+    public String toNotation() {
+        return new String(new char[]{(char) ('a' + col - 1), (char) ('0' + row)});
+    }
+
     @Override
     public String toString() {
         return String.format("[%d,%d]", row, col);
@@ -76,6 +112,6 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
     }
 }
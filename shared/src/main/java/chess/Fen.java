@@ -0,0 +1,254 @@
+package chess;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation, the standard one-line description of a chess position:
+ * <pre>
+ *     rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1
+ * </pre>
+ * piece placement (row 8 first, white pieces in upper case, digits for runs of empty squares),
+ * team to move, castling rights, en passant target square, halfmove clock, and fullmove number.
+ * The two clocks may be left off when reading, as they often are in test suites.
+ */
+final class Fen {
+
+    private static final String PIECE_LETTERS = "kqbnrp";
+
+    private Fen() {
+    }
+
+    /**
+     * @return the piece placement field for a board
+     */
+    static String formatPlacement(ChessBoard board) {
+        StringBuilder fen = new StringBuilder(72);
+        appendPlacement(fen, board);
+        return fen.toString();
+    }
+
+    static String format(ChessGame game) {
+        StringBuilder fen = new StringBuilder(90);
+        appendPlacement(fen, game.getBoard());
+
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        int rights = game.getCastlingRights();
+        if (rights == CastlingRights.NONE) {
+            fen.append('-');
+        } else {
+            if ((rights & CastlingRights.WHITE_KINGSIDE) != 0) {
+                fen.append('K');
+            }
+            if ((rights & CastlingRights.WHITE_QUEENSIDE) != 0) {
+                fen.append('Q');
+            }
+            if ((rights & CastlingRights.BLACK_KINGSIDE) != 0) {
+                fen.append('k');
+            }
+            if ((rights & CastlingRights.BLACK_QUEENSIDE) != 0) {
+                fen.append('q');
+            }
+        }
+
+        int enPassantTarget = game.getEnPassantTarget();
+        fen.append(' ');
+        if (enPassantTarget < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + (enPassantTarget & 7))).append((char) ('1' + (enPassantTarget >>> 3)));
+        }
+
+        fen.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    private static void appendPlacement(StringBuilder fen, ChessBoard board) {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int index = board.pieceIndexAt(row * 8 + col);
+                if (index < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(index % 6);
+                fen.append(index < 6 ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+    }
+
+    /**
+     * Builds a board from a piece placement field, IE everything up to the first space of a FEN string
+     *
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    static ChessBoard parsePlacement(String placement) {
+        ChessBoard board = new ChessBoard();
+        int end = parsePlacement(placement, board);
+        if (end != placement.length()) {
+            throw error(placement, end, "unexpected text after the piece placement");
+        }
+        return board;
+    }
+
+    /**
+     * Reads a whole FEN string in one left-to-right pass
+     *
+     * @throws IllegalArgumentException if the string is malformed
+     */
+    static ChessGame parse(String fen) {
+        ChessBoard board = new ChessBoard();
+        int i = parsePlacement(fen, board);
+
+        i = expectSpace(fen, i);
+        ChessGame.TeamColor turn;
+        char side = i < fen.length() ? fen.charAt(i) : ' ';
+        if (side == 'w') {
+            turn = ChessGame.TeamColor.WHITE;
+        } else if (side == 'b') {
+            turn = ChessGame.TeamColor.BLACK;
+        } else {
+            throw error(fen, i, "expected 'w' or 'b' for the team to move");
+        }
+        i++;
+
+        i = expectSpace(fen, i);
+        int rights = CastlingRights.NONE;
+        if (i < fen.length() && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            int start = i;
+            for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+                switch (fen.charAt(i)) {
+                    case 'K' -> rights |= CastlingRights.WHITE_KINGSIDE;
+                    case 'Q' -> rights |= CastlingRights.WHITE_QUEENSIDE;
+                    case 'k' -> rights |= CastlingRights.BLACK_KINGSIDE;
+                    case 'q' -> rights |= CastlingRights.BLACK_QUEENSIDE;
+                    default -> throw error(fen, i, "expected castling rights (KQkq) or '-'");
+                }
+            }
+            if (i == start) {
+                throw error(fen, i, "expected castling rights (KQkq) or '-'");
+            }
+        }
+
+        i = expectSpace(fen, i);
+        int enPassantTarget = -1;
+        if (i < fen.length() && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            if (i + 1 >= fen.length()) {
+                throw error(fen, i, "expected an en passant square or '-'");
+            }
+            int file = fen.charAt(i) - 'a';
+            int rank = fen.charAt(i + 1) - '1';
+            // the target is behind a pawn that just moved two squares: row 3 for white, row 6 for black
+            int expectedRank = turn == ChessGame.TeamColor.WHITE ? 5 : 2;
+            if (file < 0 || file > 7 || rank != expectedRank) {
+                throw error(fen, i, "expected an en passant square on row " + (expectedRank + 1) + " or '-'");
+            }
+            enPassantTarget = rank * 8 + file;
+            i += 2;
+        }
+
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (i < fen.length()) {
+            i = expectSpace(fen, i);
+            int start = i;
+            for (; i < fen.length() && Character.isDigit(fen.charAt(i)); i++) {
+                halfmoveClock = halfmoveClock * 10 + (fen.charAt(i) - '0');
+            }
+            if (i == start) {
+                throw error(fen, i, "expected the halfmove clock");
+            }
+            i = expectSpace(fen, i);
+            start = i;
+            fullmoveNumber = 0;
+            for (; i < fen.length() && Character.isDigit(fen.charAt(i)); i++) {
+                fullmoveNumber = fullmoveNumber * 10 + (fen.charAt(i) - '0');
+            }
+            if (i == start) {
+                throw error(fen, i, "expected the fullmove number");
+            }
+            if (i != fen.length()) {
+                throw error(fen, i, "unexpected text after the fullmove number");
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        // only keep rights the board can back up, IE king and rook still at home
+        game.setCastlingRights(rights & CastlingRights.inferFrom(board));
+        if (enPassantTarget >= 0) {
+            // ChessGame knows en passant from the previous move, so recreate the pawn's two-square advance
+            int step = turn == ChessGame.TeamColor.WHITE ? -8 : 8;
+            int pawnSquare = enPassantTarget + step;
+            ChessGame.TeamColor enemy = turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            if ((board.getPieceBitboard(enemy, ChessPiece.PieceType.PAWN) & (1L << pawnSquare)) != 0) {
+                game.setPrevMove(ChessMove.of(enPassantTarget - step, pawnSquare, null));
+            }
+        }
+        game.setClocks(halfmoveClock, Math.max(fullmoveNumber, 1));
+        return game;
+    }
+
+    /**
+     * reads the placement field into board
+     *
+     * @return index just past the placement field
+     */
+    private static int parsePlacement(String fen, ChessBoard board) {
+        int row = 7;
+        int col = 0;
+        int i = 0;
+        for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw error(fen, i, "each row must cover exactly 8 squares, and there are 8 rows");
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 8) {
+                    throw error(fen, i, "row is longer than 8 squares");
+                }
+            } else {
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || col > 7) {
+                    throw error(fen, i, type < 0 ? "unknown piece '" + c + "'" : "row is longer than 8 squares");
+                }
+                int color = Character.isUpperCase(c) ? 0 : 1;
+                board.placePiece(row * 8 + col, color * 6 + type);
+                col++;
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw error(fen, i, "piece placement must describe all 64 squares");
+        }
+        return i;
+    }
+
+    private static int expectSpace(String fen, int i) {
+        if (i >= fen.length() || fen.charAt(i) != ' ') {
+            throw error(fen, i, "expected a space");
+        }
+        return i + 1;
+    }
+
+    private static IllegalArgumentException error(String fen, int index, String problem) {
+        return new IllegalArgumentException(String.format("Bad FEN at character %d (%s): %s", index, problem, fen));
+    }
+}
@@ -0,0 +1,189 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Reads and writes a compact binary form of a ChessGame, for storing games where JSON would be
+ * needlessly large and slow to read back.  Version 1 of the format is:
+ * <pre>
+ *     1 byte    format version (1)
+ *     8 bytes   occupancy bitboard, IE which squares hold a piece
+ *     n bytes   a 4-bit piece index (see ChessBoard) per occupied square from a1 to h8, two to a byte
+ *     1 byte    team to move (bit 0), castling rights (bits 1 -- 4)
+ *     1 byte    status of the team to move (GameStatus.State ordinal)
+ *     2 bytes   previous move packed as in MoveList, or 0xFFFF if there is none
+ *     varint    halfmove clock
+ *     varint    fullmove number
+ *     varint    number of position history keys, followed by 8 bytes per key
+ * </pre>
+ * Multi-byte numbers are big-endian; varints carry 7 bits per byte, low bits first, with the high
+ * bit set on every byte but the last.  The starting position takes 32 bytes.
+ */
+final class GameCodec {
+
+    static final int VERSION = 1;
+
+    private static final int NO_PREVIOUS_MOVE = 0xFFFF;
+
+    private GameCodec() {
+    }
+
+    static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        PositionHistory history = game.getHistory();
+        long occupied = board.getOccupancy();
+        int pieces = Long.bitCount( occupied );
+
+        // a varint takes at most 5 bytes
+        byte[] out = new byte[1 + 8 + (pieces + 1) / 2 + 1 + 1 + 2 + 5 + 5 + 5 + 8 * history.size()];
+        int i = 0;
+        out[i++] = VERSION;
+        i = writeLong( out, i, occupied );
+
+        int nibble = 0;
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            int index = board.pieceIndexAt( Long.numberOfTrailingZeros( squares ) );
+            if ((nibble & 1) == 0) {
+                out[i] = (byte) (index << 4);
+            } else {
+                out[i++] |= (byte) index;
+            }
+            nibble++;
+        }
+        if ((nibble & 1) != 0) {
+            i++;
+        }
+
+        int turn = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 0 : 1;
+        out[i++] = (byte) (turn | (game.getCastlingRights() << 1));
+        out[i++] = (byte) game.getStatus().state().ordinal();
+
+        ChessMove prevMove = game.getPrevMove();
+        int packedMove = prevMove == null ? NO_PREVIOUS_MOVE : MoveList.encode( prevMove );
+        out[i++] = (byte) (packedMove >>> 8);
+        out[i++] = (byte) packedMove;
+
+        i = writeVarint( out, i, game.getHalfmoveClock() );
+        i = writeVarint( out, i, game.getFullmoveNumber() );
+        i = writeVarint( out, i, history.size() );
+        for (int k = 0; k < history.size(); k++) {
+            i = writeLong( out, i, history.get( k ) );
+        }
+        return Arrays.copyOf( out, i );
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a game in a known version of the format
+     */
+    static ChessGame decode(byte[] bytes) {
+        Reader in = new Reader( bytes );
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown game encoding version " + version);
+        }
+
+        long occupied = in.readLong();
+        ChessBoard board = new ChessBoard();
+        int nibble = 0;
+        int packed = 0;
+        for (long squares = occupied; squares != 0; squares &= squares - 1) {
+            int index;
+            if ((nibble & 1) == 0) {
+                packed = in.readByte();
+                index = packed >>> 4;
+            } else {
+                index = packed & 0xF;
+            }
+            if (index >= 12) {
+                throw in.error("unknown piece index " + index);
+            }
+            board.placePiece( Long.numberOfTrailingZeros( squares ), index );
+            nibble++;
+        }
+
+        int flags = in.readByte();
+        int stateOrdinal = in.readByte();
+        GameStatus.State[] states = GameStatus.State.values();
+        if (stateOrdinal >= states.length) {
+            throw in.error("unknown status " + stateOrdinal);
+        }
+        int packedMove = (in.readByte() << 8) | in.readByte();
+        int halfmoveClock = in.readVarint();
+        int fullmoveNumber = in.readVarint();
+        int historySize = in.readVarint();
+        PositionHistory history = new PositionHistory();
+        for (int k = 0; k < historySize; k++) {
+            history.push( in.readLong() );
+        }
+
+        ChessGame.TeamColor turn = (flags & 1) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessGame game = new ChessGame();
+        game.setBoard( board );
+        game.setTeamTurn( turn );
+        game.setCastlingRights( (flags >>> 1) & CastlingRights.ALL );
+        if (packedMove != NO_PREVIOUS_MOVE) {
+            game.setPrevMove( MoveList.toChessMove( packedMove ) );
+        }
+        game.setClocks( halfmoveClock, fullmoveNumber );
+        game.setHistory( history );
+        // saved rather than worked out again, so reading a game back needs no move generation
+        game.setStatus( new GameStatus( states[stateOrdinal], turn ) );
+        return game;
+    }
+
+    private static int writeLong(byte[] out, int i, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out[i++] = (byte) (value >>> shift);
+        }
+        return i;
+    }
+
+    private static int writeVarint(byte[] out, int i, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[i++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[i++] = (byte) value;
+        return i;
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            if (position >= bytes.length) {
+                throw error("unexpected end of data");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int k = 0; k < 8; k++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw error("varint is too long");
+        }
+
+        IllegalArgumentException error(String problem) {
+            return new IllegalArgumentException(String.format("Bad game encoding at byte %d: %s", position, problem));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * Plays a whole sequence of moves from a starting position, stopping at the first move that is
+ * not legal, for importing and auditing games in bulk.  Unlike calling ChessGame.makeMove once per
+ * move, a bad move is reported as a ReplayResult rather than an exception, and each move is
+ * checked against the legal moves of its start square only, so a ply costs about as much as
+ * generating one piece's moves.  One game is played forward in place from start to finish.
+ * <p>
+ * Moves after a draw by repetition or the fifty-move rule are still made, as they are by makeMove;
+ * moves after checkmate or stalemate are not, since there are none.
+ */
+public final class GameReplay {
+
+    // indexed by PieceType.ordinal(), as in ChessMove.toNotation
+    private static final String PROMOTION_LETTERS = "kqbnrp";
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private GameReplay() {
+    }
+
+    /**
+     * @param start the position to replay from; it is copied, not changed
+     * @param packedMoves moves packed by ChessMove.encode
+     * @return the game after the moves, and the first bad move if there was one
+     */
+    public static ReplayResult replay(ChessGame start, int[] packedMoves) {
+        return replay(start, packedMoves, 0, packedMoves.length);
+    }
+
+    /**
+     * Same as replay(start, packedMoves), for the moves packedMoves[offset] up to packedMoves[end];
+     * a failed index counts from offset
+     */
+    public static ReplayResult replay(ChessGame start, int[] packedMoves, int offset, int end) {
+        ChessGame game = new ChessGame(start);
+        MoveList moves = new MoveList();
+        for (int i = offset; i < end; i++) {
+            int move = packedMoves[i];
+            ReplayResult.Failure failure = (move & ~0x7FFF) != 0 || ((move >>> 12) & 0x7) > PIECE_TYPES.length
+                    ? ReplayResult.Failure.NOT_A_MOVE : apply( game, move, moves );
+            if (failure != null) {
+                return new ReplayResult(game, i - offset, failure);
+            }
+        }
+        return new ReplayResult(game, -1, null);
+    }
+
+    /**
+     * @param start the position to replay from; it is copied, not changed
+     * @param textMoves moves in coordinate notation ("e2e4", "e7e8q"; see ChessMove.toNotation) or
+     *                  SAN ("e4", "Nxf7+", "O-O"), which may be mixed
+     * @return the game after the moves, and the first bad move if there was one
+     */
+    public static ReplayResult replay(ChessGame start, List<String> textMoves) {
+        ChessGame game = new ChessGame(start);
+        MoveList moves = new MoveList();
+        int index = 0;
+        for (String text : textMoves) {
+            int move = parseCoordinates( text );
+            ReplayResult.Failure failure;
+            if (move >= 0) {
+                failure = apply( game, move, moves );
+            } else {
+                failure = applySan( game, text, moves );
+            }
+            if (failure != null) {
+                return new ReplayResult(game, index, failure);
+            }
+            index++;
+        }
+        return new ReplayResult(game, -1, null);
+    }
+
+    /**
+     * makes a packed move if it is legal
+     *
+     * @return null if the move was made, otherwise why not
+     */
+    private static ReplayResult.Failure apply(ChessGame game, int move, MoveList moves) {
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        long from = 1L << MoveList.from( move );
+        LegalMoveGenerator generator = new LegalMoveGenerator( board, turn, game.getEnPassantTarget(), game.getCastlingRights() );
+        moves.clear();
+        if ((board.getOccupancy( turn ) & from) != 0) {
+            generator.addMoves( MoveList.from( move ), moves );
+            if (moves.contains( move )) {
+                game.makeUncheckedMove( MoveList.toChessMove( move ) );
+                return null;
+            }
+        }
+        // only a bad move pays for working out why
+        if (!generator.hasAnyMove()) {
+            return ReplayResult.Failure.GAME_OVER;
+        }
+        if ((board.getOccupancy() & from) == 0) {
+            return ReplayResult.Failure.NO_PIECE;
+        }
+        return (board.getOccupancy( turn ) & from) == 0 ? ReplayResult.Failure.WRONG_TEAM : ReplayResult.Failure.ILLEGAL;
+    }
+
+    /**
+     * makes a SAN move if it is legal
+     *
+     * @return null if the move was made (it is then the game's previous move), otherwise why not
+     */
+    static ReplayResult.Failure applySan(ChessGame game, String san, MoveList moves) {
+        int move = San.parsePacked( game, san, moves );
+        if (move >= 0) {
+            game.makeUncheckedMove( MoveList.toChessMove( move ) );
+            return null;
+        }
+        if (moves.isEmpty()) {
+            // parsePacked listed the legal moves, and there were none
+            return ReplayResult.Failure.GAME_OVER;
+        }
+        return switch (move) {
+            case San.NOT_A_MOVE -> ReplayResult.Failure.NOT_A_MOVE;
+            case San.AMBIGUOUS -> ReplayResult.Failure.AMBIGUOUS;
+            default -> ReplayResult.Failure.ILLEGAL;
+        };
+    }
+
+    /**
+     * Reads a move like "e2e4" or "e7e8q" without throwing on anything else
+     *
+     * @return the packed move, or -1 if the text is not in coordinate notation
+     */
+    static int parseCoordinates(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            return -1;
+        }
+        int fromCol = text.charAt(0) - 'a';
+        int fromRow = text.charAt(1) - '1';
+        int toCol = text.charAt(2) - 'a';
+        int toRow = text.charAt(3) - '1';
+        if ((fromCol | fromRow | toCol | toRow) < 0 || fromCol > 7 || fromRow > 7 || toCol > 7 || toRow > 7) {
+            return -1;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            int type = PROMOTION_LETTERS.indexOf(text.charAt(4));
+            if (type < 0) {
+                return -1;
+            }
+            promotion = PIECE_TYPES[type];
+        }
+        return MoveList.encode(fromRow * 8 + fromCol, toRow * 8 + toCol, promotion);
+    }
+}
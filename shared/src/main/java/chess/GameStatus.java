@@ -0,0 +1,30 @@
+package chess;
+
+/**
+ * Where a game stands for the team whose turn it is: free to move, in check, checkmated,
+ * stalemated, or drawn by threefold repetition or the fifty-move rule.  ChessGame works this out once per move and stores it with the game, so readers
+ * need not re-run the check and checkmate tests themselves.
+ *
+ * @param state the state of the game
+ * @param team the team the state applies to (the team whose turn it is)
+ */
+public record GameStatus(State state, ChessGame.TeamColor team) {
+
+    public enum State {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        // the same position (same team to move, same castling and en passant options) for the third time
+        THREEFOLD_REPETITION,
+        // fifty moves by each team without a pawn move or a capture
+        FIFTY_MOVE_RULE
+    }
+
+    /**
+     * @return True if the game cannot continue
+     */
+    public boolean isGameOver() {
+        return (state != State.NORMAL) && (state != State.CHECK);
+    }
+}
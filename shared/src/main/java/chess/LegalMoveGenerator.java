@@ -0,0 +1,251 @@
+package chess;
+
+/**
+ * Generates only legal moves for one team in one position, without trying each move on the board.
+ * <p>
+ * The position is analyzed once, up front: which enemy pieces give check, which squares would
+ * block or capture a lone checker, and which of the team's pieces are pinned to their king.  Moves
+ * are then limited to those squares: a pinned piece may only move along the line through its king
+ * and its pinner, every move other than a king move must resolve a check, and in double check only
+ * the king may move.  The king itself may only step to squares the enemy does not attack once the
+ * king is out of the way.
+ * <p>
+ * Castling is generated here too, since whether it is allowed depends on attacked squares: the
+ * king may not castle out of, through, or into check.
+ * <p>
+ * En passant is the one move that takes two pieces off a line at once (the capturing and the
+ * captured pawn), which can expose the king along a rank; it is checked by looking for sliding
+ * attackers with both pawns removed.
+ */
+final class LegalMoveGenerator {
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor us;
+    private final ChessGame.TeamColor them;
+    // -1 if the team has no king, in which case nothing is illegal
+    private final int kingSquare;
+    private final long friendly;
+    private final long occupied;
+    private final long checkers;
+    // squares a piece other than the king may move to: everything, a block or capture of the lone
+    // checker, or nothing in double check
+    private final long checkMask;
+    private final long pinned;
+    // square a pawn capturing en passant would move to, or -1
+    private final int enPassantTarget;
+    // see CastlingRights
+    private final int castlingRights;
+
+    /**
+     * @param board the position
+     * @param us the team to generate moves for
+     * @param enPassantTarget square that team's pawns may capture onto en passant, or -1
+     * @param castlingRights castling rights still held (see CastlingRights)
+     */
+    LegalMoveGenerator(ChessBoard board, ChessGame.TeamColor us, int enPassantTarget, int castlingRights) {
+        this.board = board;
+        this.us = us;
+        this.them = us == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        this.friendly = board.getOccupancy( us );
+        this.occupied = board.getOccupancy();
+        this.enPassantTarget = enPassantTarget;
+        this.castlingRights = castlingRights;
+
+        long king = board.getPieceBitboard( us, ChessPiece.PieceType.KING );
+        if (king == 0) {
+            kingSquare = -1;
+            checkers = 0;
+            checkMask = ~0L;
+            pinned = 0;
+            return;
+        }
+        kingSquare = Long.numberOfTrailingZeros( king );
+        checkers = board.attackersOf( kingSquare, them );
+        if (checkers == 0) {
+            checkMask = ~0L;
+        } else if (Long.bitCount( checkers ) == 1) {
+            // capture the checker, or step between it and the king (empty unless it is a slider)
+            int checker = Long.numberOfTrailingZeros( checkers );
+            checkMask = checkers | AttackTables.BETWEEN[kingSquare][checker];
+        } else {
+            checkMask = 0;
+        }
+        pinned = findPinned();
+    }
+
+    /**
+     * looks outward from the king along each ray for one of our pieces with an enemy slider of the
+     * matching kind directly behind it
+     */
+    private long findPinned() {
+        long queens = board.getPieceBitboard( them, ChessPiece.PieceType.QUEEN );
+        long diagonalSliders = board.getPieceBitboard( them, ChessPiece.PieceType.BISHOP ) | queens;
+        long perpendicularSliders = board.getPieceBitboard( them, ChessPiece.PieceType.ROOK ) | queens;
+
+        long found = 0;
+        for (int direction = 0; direction < 8; direction++) {
+            long sliders = direction < AttackTables.FIRST_PERPENDICULAR ? diagonalSliders : perpendicularSliders;
+            if ((AttackTables.RAY_MASKS[direction][kingSquare] & sliders) == 0) {
+                continue;
+            }
+            long candidate = 0;
+            for (int target : AttackTables.RAYS[direction][kingSquare]) {
+                long bit = 1L << target;
+                if ((occupied & bit) == 0) {
+                    continue;
+                }
+                if (candidate == 0 && (friendly & bit) != 0) {
+                    // the first piece out from the king is ours; see what is behind it
+                    candidate = bit;
+                    continue;
+                }
+                if (candidate != 0 && (sliders & bit) != 0) {
+                    found |= candidate;
+                }
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return True if the team is in check
+     */
+    boolean isInCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Appends the legal moves of our piece on the given square
+     *
+     * @param from square of one of this team's pieces
+     * @param moves buffer the moves are appended to
+     */
+    void addMoves(int from, MoveList moves) {
+        if (from == kingSquare) {
+            addKingMoves(moves);
+            return;
+        }
+        long allowed = checkMask;
+        if ((pinned & (1L << from)) != 0) {
+            allowed &= AttackTables.LINE[kingSquare][from];
+        }
+        if (allowed == 0) {
+            return;
+        }
+
+        int start = moves.size();
+        PieceMovesCalculator.generateMoves( board, from, moves );
+        if (allowed != ~0L) {
+            // drop the moves that leave the king in check, compacting in place
+            int kept = start;
+            for (int i = start; i < moves.size(); i++) {
+                int move = moves.get( i );
+                if ((allowed & (1L << MoveList.to( move ))) != 0) {
+                    moves.set( kept++, move );
+                }
+            }
+            moves.truncate( kept );
+        }
+
+        if ((enPassantTarget >= 0)
+                && ((board.getPieceBitboard( us, ChessPiece.PieceType.PAWN ) & (1L << from)) != 0)
+                && ((AttackTables.PAWN_ATTACKS[us.ordinal()][from] & (1L << enPassantTarget)) != 0)
+                && isEnPassantLegal( from )) {
+            moves.add( MoveList.encode( from, enPassantTarget, null ) );
+        }
+    }
+
+    private void addKingMoves(MoveList moves) {
+        // the king no longer blocks a slider's ray once it steps along it
+        long occupiedWithoutKing = occupied & ~(1L << kingSquare);
+        for (long targets = AttackTables.KING_ATTACKS[kingSquare] & ~friendly; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros( targets );
+            if (!board.isSquareAttacked( to, them, occupiedWithoutKing )) {
+                moves.add( MoveList.encode( kingSquare, to, null ) );
+            }
+        }
+        if (checkers == 0) {
+            // no castling out of check
+            addCastlingMove( CastlingRights.kingside( us ), kingSquare + 3, kingSquare + 2, moves );
+            addCastlingMove( CastlingRights.queenside( us ), kingSquare - 4, kingSquare - 2, moves );
+        }
+    }
+
+    /**
+     * adds the castle if the team still has the right, the rook is in its corner, the squares between
+     * king and rook are empty, and the king does not pass through or land on an attacked square
+     */
+    private void addCastlingMove(int right, int rookSquare, int kingTarget, MoveList moves) {
+        int homeSquare = us == ChessGame.TeamColor.WHITE ? CastlingRights.WHITE_KING_SQUARE : CastlingRights.BLACK_KING_SQUARE;
+        if (((castlingRights & right) == 0) || (kingSquare != homeSquare)
+                || ((board.getPieceBitboard( us, ChessPiece.PieceType.ROOK ) & (1L << rookSquare)) == 0)
+                || ((occupied & AttackTables.BETWEEN[kingSquare][rookSquare]) != 0)) {
+            return;
+        }
+        int passedSquare = (kingSquare + kingTarget) / 2;
+        if (board.isSquareAttacked( passedSquare, them ) || board.isSquareAttacked( kingTarget, them )) {
+            return;
+        }
+        moves.add( MoveList.encode( kingSquare, kingTarget, null ) );
+    }
+
+    private boolean isEnPassantLegal(int from) {
+        if (kingSquare < 0) {
+            return true;
+        }
+        // the captured pawn is beside the capturing pawn, on the target's column
+        long captured = 1L << ((from & ~7) | (enPassantTarget & 7));
+        long sliders = board.getPieceBitboard( them, ChessPiece.PieceType.BISHOP )
+                | board.getPieceBitboard( them, ChessPiece.PieceType.ROOK )
+                | board.getPieceBitboard( them, ChessPiece.PieceType.QUEEN );
+        if ((checkers & ~captured & ~sliders) != 0) {
+            // a knight or pawn check that capturing this pawn does not remove
+            return false;
+        }
+        long occupiedAfter = (occupied & ~(1L << from) & ~captured) | (1L << enPassantTarget);
+        return !board.isAttackedBySliders( kingSquare, them, occupiedAfter );
+    }
+
+    /**
+     * Appends every legal move of the team, grouped by start square from a1 to h8
+     *
+     * @param moves buffer the moves are appended to
+     * @param squareStart if not null, squareStart[s] is set to the index of the first move from square
+     *                    s, and squareStart[64] to the end of the moves
+     */
+    void addAllMoves(MoveList moves, int[] squareStart) {
+        for (int square = 0; square < 64; square++) {
+            if (squareStart != null) {
+                squareStart[square] = moves.size();
+            }
+            if ((friendly & (1L << square)) != 0) {
+                addMoves( square, moves );
+            }
+        }
+        if (squareStart != null) {
+            squareStart[64] = moves.size();
+        }
+    }
+
+    /**
+     * @return True if the team has at least one legal move; stops at the first one found
+     */
+    boolean hasAnyMove() {
+        MoveList moves = new MoveList(32);
+        if (kingSquare >= 0) {
+            // the king is the only piece that can move in double check, so try it first
+            addMoves( kingSquare, moves );
+            if (!moves.isEmpty()) {
+                return true;
+            }
+        }
+        for (long pieces = friendly & ~(kingSquare < 0 ? 0 : 1L << kingSquare); pieces != 0; pieces &= pieces - 1) {
+            addMoves( Long.numberOfTrailingZeros( pieces ), moves );
+            if (!moves.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,151 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of moves packed into ints, for generating moves without allocating a ChessMove
+ * (or a list) per move.  Callers create one MoveList, then clear and refill it as often as they like.
+ * <p>
+ * A packed move holds the start square in bits 0-5, the end square in bits 6-11, and the promotion
+ * piece in bits 12-14 (0 for none, otherwise PieceType.ordinal() + 1).  Squares are ChessBoard bit
+ * indexes: (row - 1) * 8 + (col - 1).
+ */
+public final class MoveList {
+
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(64);
+    }
+
+    public MoveList(int initialCapacity) {
+        this.moves = new int[Math.max(initialCapacity, 8)];
+    }
+
+    /**
+     * Packs a move into an int
+     *
+     * @param from start square (0 -- 63)
+     * @param to end square (0 -- 63)
+     * @param promotionPiece piece a pawn promotes to, or null
+     */
+    public static int encode(int from, int to, ChessPiece.PieceType promotionPiece) {
+        return from | (to << 6) | ((promotionPiece == null ? 0 : promotionPiece.ordinal() + 1) << 12);
+    }
+
+    public static int encode(ChessMove move) {
+        return encode(ChessBoard.squareIndex(move.getStartPosition()),
+                ChessBoard.squareIndex(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    /**
+     * @return start square (0 -- 63) of a packed move
+     */
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    /**
+     * @return end square (0 -- 63) of a packed move
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return promotion piece of a packed move, or null if it is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int code = (move >>> 12) & 0x7;
+        return code == 0 ? null : PIECE_TYPES[code - 1];
+    }
+
+    /**
+     * @return the shared ChessMove for a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return moves[index];
+    }
+
+    /**
+     * Replaces the move at an index, e.g. to reorder moves in place
+     */
+    public void set(int index, int move) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from index newSize on
+     */
+    public void truncate(int newSize) {
+        if (newSize < size) {
+            size = Math.max(newSize, 0);
+        }
+    }
+
+    /**
+     * @return the moves from index start on, as shared ChessMove instances
+     */
+    public ArrayList<ChessMove> toChessMoves(int start) {
+        return toChessMoves(start, size);
+    }
+
+    /**
+     * @return the moves from index start up to (not including) end, as shared ChessMove instances
+     */
+    public ArrayList<ChessMove> toChessMoves(int start, int end) {
+        end = Math.min(end, size);
+        ArrayList<ChessMove> chessMoves = new ArrayList<>(Math.max(end - start, 0));
+        for (int i = start; i < end; i++) {
+            chessMoves.add(toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+
+    public ArrayList<ChessMove> toChessMoves() {
+        return toChessMoves(0);
+    }
+}
@@ -0,0 +1,45 @@
+package chess;
+
+/**
+ * Everything needed to take back a move applied with {@link ChessGame#makeUncheckedMove(ChessMove)}:
+ * the piece that moved, whatever it captured (and where, since an en passant capture is not on the
+ * move's end square), and the game state the move replaced.
+ */
+public final class MoveUndo {
+    final ChessMove move;
+    final int packedMove;
+    // moved piece, captured piece and captured square, as returned by ChessBoard.makeMove
+    final int boardUndo;
+    final ChessMove previousMove;
+    final ChessGame.TeamColor previousTurn;
+    final int previousCastlingRights;
+    final int previousHalfmoveClock;
+    // the repetition history the move replaced, or null if the move was added to it instead
+    final PositionHistory previousHistory;
+
+    MoveUndo(ChessMove move, int packedMove, int boardUndo, ChessMove previousMove, ChessGame.TeamColor previousTurn,
+             int previousCastlingRights, int previousHalfmoveClock, PositionHistory previousHistory) {
+        this.move = move;
+        this.packedMove = packedMove;
+        this.boardUndo = boardUndo;
+        this.previousMove = previousMove;
+        this.previousTurn = previousTurn;
+        this.previousCastlingRights = previousCastlingRights;
+        this.previousHalfmoveClock = previousHalfmoveClock;
+        this.previousHistory = previousHistory;
+    }
+
+    /**
+     * @return the move this record takes back
+     */
+    public ChessMove getMove() {
+        return move;
+    }
+
+    /**
+     * @return true if the move captured a piece (including en passant)
+     */
+    public boolean isCapture() {
+        return ((boardUndo >>> 4) & 0xF) != 0;
+    }
+}
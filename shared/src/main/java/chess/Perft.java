@@ -0,0 +1,202 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft ("performance test") counts the leaf nodes of the legal move tree to a fixed depth.  The
+ * counts for well-known positions are published, so a mismatch pinpoints a move generation bug,
+ * and the time taken is a direct measure of move generation speed.
+ * <p>
+ * The game passed in is played forward and taken back in place with makeUncheckedMove and
+ * unmakeMove, and is left as it was found.
+ * <p>
+ * The parallel versions split the tree across a ForkJoinPool: every move near the root becomes a
+ * task with its own copy of the game, and subtrees of SEQUENTIAL_DEPTH plies or fewer are counted
+ * on one thread as above.  Splitting below the root keeps all cores busy even when one first move
+ * has a much bigger subtree than the rest.
+ */
+public final class Perft {
+
+    // subtrees this shallow are not worth a task and a game copy of their own
+    private static final int SEQUENTIAL_DEPTH = 3;
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the positions reachable from the given game in exactly depth moves
+     *
+     * @param game the position to start from, with the team to move set
+     * @param depth number of moves (plies) to look ahead; 0 counts just the starting position
+     * @return number of leaf positions
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList[] buffers = new MoveList[depth];
+        for (int ply = 0; ply < depth; ply++) {
+            buffers[ply] = new MoveList();
+        }
+        return perft(game, depth, buffers);
+    }
+
+    /**
+     * Same as perft, but broken down by the first move; comparing these counts against another
+     * move generator's narrows a mismatch down to a single line of play
+     *
+     * @param game the position to start from, with the team to move set
+     * @param depth number of moves (plies) to look ahead, at least 1
+     * @return leaf count below each legal first move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("divide needs a depth of at least 1");
+        }
+        MoveList[] buffers = new MoveList[depth];
+        for (int ply = 0; ply < depth; ply++) {
+            buffers[ply] = new MoveList();
+        }
+        MoveList moves = buffers[depth - 1];
+        generateMoves(game, moves);
+
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            ChessMove move = MoveList.toChessMove(moves.get(i));
+            MoveUndo undo = game.makeUncheckedMove(move);
+            counts.put(move, depth == 1 ? 1 : perft(game, depth - 1, buffers));
+            game.unmakeMove(undo);
+        }
+        return counts;
+    }
+
+    /**
+     * Same as perft, but counted on every core of the common ForkJoinPool
+     */
+    public static long perftParallel(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (long count : divideParallel(game, depth).values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    /**
+     * Same as divide, but counted on every core of the common ForkJoinPool
+     */
+    public static Map<ChessMove, Long> divideParallel(ChessGame game, int depth) {
+        return divideParallel(game, depth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as divide, but counted by the tasks of the given pool.  The game is only read, to list
+     * the first moves; each first move is counted on its own copy.
+     *
+     * @param pool the pool to run on; its parallelism is the number of threads used
+     */
+    public static Map<ChessMove, Long> divideParallel(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("divide needs a depth of at least 1");
+        }
+        MoveList moves = new MoveList();
+        generateMoves(game, moves);
+
+        List<ChessMove> firstMoves = new ArrayList<>(moves.size());
+        List<PerftTask> tasks = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            ChessMove move = MoveList.toChessMove(moves.get(i));
+            firstMoves.add(move);
+            tasks.add(new PerftTask(afterMove(game, move), depth - 1));
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < firstMoves.size(); i++) {
+            counts.put(firstMoves.get(i), tasks.get(i).join());
+        }
+        return counts;
+    }
+
+    /**
+     * @return a copy of the game with the move played
+     */
+    private static ChessGame afterMove(ChessGame game, ChessMove move) {
+        ChessGame copy = new ChessGame(game);
+        copy.makeUncheckedMove(move);
+        return copy;
+    }
+
+    /**
+     * counts the leaves below a game it owns, splitting into a task per move while deep enough
+     */
+    private static final class PerftTask extends RecursiveTask<Long> {
+        private final ChessGame game;
+        private final int depth;
+
+        PerftTask(ChessGame game, int depth) {
+            this.game = game;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH) {
+                return perft(game, depth);
+            }
+            MoveList moves = new MoveList();
+            generateMoves(game, moves);
+            List<PerftTask> subtasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                subtasks.add(new PerftTask(afterMove(game, MoveList.toChessMove(moves.get(i))), depth - 1));
+            }
+            invokeAll(subtasks);
+            long nodes = 0;
+            for (PerftTask subtask : subtasks) {
+                nodes += subtask.join();
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * recursive step; buffers[depth - 1] holds the moves generated at this depth so that no list is
+     * allocated per node
+     */
+    private static long perft(ChessGame game, int depth, MoveList[] buffers) {
+        MoveList moves = buffers[depth - 1];
+        generateMoves(game, moves);
+        if (depth == 1) {
+            // bulk counting: the leaves are just the legal moves
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            MoveUndo undo = game.makeUncheckedMove(MoveList.toChessMove(moves.get(i)));
+            nodes += perft(game, depth - 1, buffers);
+            game.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    /**
+     * fills moves with every legal move of the team whose turn it is
+     */
+    private static void generateMoves(ChessGame game, MoveList moves) {
+        moves.clear();
+        game.allValidMoves(game.getTeamTurn(), moves);
+    }
+}
@@ -0,0 +1,30 @@
+package chess;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game read by PgnReader
+ *
+ * @param tags the tag pairs, e.g. "White" -> "Carlsen", in the order they were read
+ * @param moves the moves, resolved against the position each was played in, up to the first one
+ *              that could not be
+ * @param result "1-0", "0-1", "1/2-1/2", or "*" if the game was unfinished or gave no result
+ * @param replay the game after the moves, and the first bad move if there was one
+ */
+public record PgnGame(Map<String, String> tags, List<ChessMove> moves, String result, ReplayResult replay) {
+
+    /**
+     * @return the value of a tag, or null if the game does not have it
+     */
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * @return the game after every move that could be made
+     */
+    public ChessGame game() {
+        return replay.game();
+    }
+}
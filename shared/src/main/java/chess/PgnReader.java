@@ -0,0 +1,333 @@
+package chess;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads games in PGN (Portable Game Notation) one at a time, as a collection is read, so a file
+ * of any size is read in the same memory: a buffer of input, and the game being read.  Comments,
+ * variations, numeric annotations and move numbers are skipped over without being kept, and tag
+ * names, tag values and moves longer than MAX_TOKEN characters are cut short.
+ * <p>
+ * Each game is played out as it is read, from the position in its FEN tag if it has one and the
+ * starting position otherwise; SAN moves are matched against the legal moves of the position
+ * (see San).  A game with a move that cannot be made is still returned, with the moves before it
+ * and the reason in its ReplayResult; the rest of its moves are skipped.
+ */
+public final class PgnReader implements AutoCloseable {
+
+    static final int MAX_TOKEN = 255;
+    private static final int MAX_TAGS = 64;
+    private static final int BUFFER_CHARS = 8192;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_CHARS];
+    private int position;
+    private int limit;
+    // a character given back by unread, or -2
+    private int pushedBack = -2;
+    private boolean atLineStart = true;
+    private final StringBuilder token = new StringBuilder(MAX_TOKEN);
+    private final MoveList moveBuffer = new MoveList();
+
+    public PgnReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads UTF-8 bytes from a channel, e.g. a FileChannel; bytes that are not UTF-8 read as U+FFFD
+     */
+    public PgnReader(ReadableByteChannel channel) {
+        this(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), BUFFER_CHARS));
+    }
+
+    /**
+     * Reads the next game
+     *
+     * @return the game, or null at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<ChessMove> moves = new ArrayList<>();
+        ChessGame game = null;
+        ReplayResult.Failure failure = null;
+        boolean started = false;
+        boolean inMoves = false;
+        int variationDepth = 0;
+
+        while (true) {
+            boolean lineStart = atLineStart;
+            int c = read();
+            if (c < 0) {
+                return started ? finish(tags, moves, game, failure, "*") : null;
+            } else if (Character.isWhitespace(c)) {
+                continue;
+            } else if ((c == '%' && lineStart) || c == ';') {
+                // an escaped line, or a comment to the end of the line
+                skipLine();
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == '(') {
+                variationDepth++;
+            } else if (c == ')') {
+                variationDepth = Math.max(0, variationDepth - 1);
+            } else if (c == '}' || c == ']') {
+                // IE stray closing brackets; nothing to read
+                continue;
+            } else if (c == '[' && variationDepth == 0) {
+                if (inMoves) {
+                    // a tag after some moves, with no result between: the next game has begun
+                    unread(c);
+                    return finish(tags, moves, game, failure, "*");
+                }
+                readTag(tags);
+                started = true;
+            } else {
+                String text = readToken(c);
+                if (variationDepth > 0 || text.startsWith("$")) {
+                    continue;
+                }
+                started = true;
+                if (text.equals("1-0") || text.equals("0-1") || text.equals("1/2-1/2") || text.equals("*")) {
+                    return finish(tags, moves, game, failure, text);
+                }
+                String san = stripMoveNumber(text);
+                if (san.isEmpty()) {
+                    continue;
+                }
+                if (!inMoves) {
+                    inMoves = true;
+                    game = start(tags);
+                    failure = game == null ? ReplayResult.Failure.BAD_START_POSITION : null;
+                }
+                if (failure == null) {
+                    failure = GameReplay.applySan(game, san, moveBuffer);
+                    if (failure == null) {
+                        moves.add(game.getPrevMove());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads every remaining game, handing each to the action as soon as it is read
+     */
+    public void forEach(Consumer<PgnGame> action) throws IOException {
+        for (PgnGame game = next(); game != null; game = next()) {
+            action.accept(game);
+        }
+    }
+
+    /**
+     * @return the remaining games, read lazily as the stream is consumed; an IOException while
+     * reading is thrown as an UncheckedIOException
+     */
+    public Stream<PgnGame> games() {
+        Iterator<PgnGame> iterator = new Iterator<>() {
+            private PgnGame nextGame;
+
+            @Override
+            public boolean hasNext() {
+                if (nextGame == null) {
+                    try {
+                        nextGame = PgnReader.this.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return nextGame != null;
+            }
+
+            @Override
+            public PgnGame next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                PgnGame game = nextGame;
+                nextGame = null;
+                return game;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * @return the position the game starts from, or null if its FEN tag cannot be read
+     */
+    private static ChessGame start(Map<String, String> tags) {
+        String fen = tags.get("FEN");
+        if (fen == null) {
+            return new ChessGame();
+        }
+        try {
+            return ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static PgnGame finish(Map<String, String> tags, List<ChessMove> moves, ChessGame game,
+                                  ReplayResult.Failure failure, String result) {
+        if (game == null && failure == null) {
+            // IE a game without moves
+            game = start(tags);
+            failure = game == null ? ReplayResult.Failure.BAD_START_POSITION : null;
+        }
+        if (game == null) {
+            game = new ChessGame();
+        }
+        int failedIndex = failure == null ? -1 : moves.size();
+        return new PgnGame(tags, moves, result, new ReplayResult(game, failedIndex, failure));
+    }
+
+    /**
+     * @return the token with any leading move number, "12." or "12...", taken off
+     */
+    private static String stripMoveNumber(String text) {
+        int start = 0;
+        while (start < text.length() && Character.isDigit(text.charAt(start))) {
+            start++;
+        }
+        if (start == text.length() || text.charAt(start) != '.') {
+            // no dots after the digits, so they are not a move number
+            return start == text.length() ? "" : text;
+        }
+        while (start < text.length() && text.charAt(start) == '.') {
+            start++;
+        }
+        return text.substring(start);
+    }
+
+    /**
+     * reads a tag pair, [Name "value"], from after its opening bracket
+     */
+    private void readTag(Map<String, String> tags) throws IOException {
+        int c = skipWhitespace();
+        token.setLength(0);
+        while (c >= 0 && c != '"' && c != ']' && !Character.isWhitespace(c)) {
+            append(c);
+            c = read();
+        }
+        String name = token.toString();
+        if (Character.isWhitespace(c)) {
+            c = skipWhitespace();
+        }
+        token.setLength(0);
+        if (c == '"') {
+            for (c = read(); c >= 0 && c != '"'; c = read()) {
+                if (c == '\\') {
+                    c = read();
+                    if (c < 0) {
+                        break;
+                    }
+                }
+                append(c);
+            }
+            c = read();
+        }
+        String value = token.toString();
+        // whatever else is before the closing bracket is not part of the tag
+        while (c >= 0 && c != ']' && c != '\n') {
+            c = read();
+        }
+        if (!name.isEmpty() && (tags.size() < MAX_TAGS || tags.containsKey(name))) {
+            tags.put(name, value);
+        }
+    }
+
+    /**
+     * reads a move, result or annotation starting with the given character, up to the next space
+     * or the start of a comment, variation or tag
+     */
+    private String readToken(int first) throws IOException {
+        token.setLength(0);
+        append(first);
+        for (int c = read(); c >= 0; c = read()) {
+            if (Character.isWhitespace(c) || "{}()[];".indexOf(c) >= 0) {
+                unread(c);
+                break;
+            }
+            append(c);
+        }
+        return token.toString();
+    }
+
+    private void append(int c) {
+        if (token.length() < MAX_TOKEN) {
+            token.append((char) c);
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = read();
+        while (c >= 0 && Character.isWhitespace(c)) {
+            c = read();
+        }
+        return c;
+    }
+
+    private void skipLine() throws IOException {
+        int c = read();
+        while (c >= 0 && c != '\n') {
+            c = read();
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c = read();
+        while (c >= 0 && c != end) {
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+        } else {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            c = buffer[position++];
+        }
+        atLineStart = c == '\n';
+        return c;
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+        atLineStart = false;
+    }
+}
@@ -0,0 +1,164 @@
+package chess;
+
+import model.GameData;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games in PGN (Portable Game Notation), in the export layout other programs expect: the
+ * seven standard tags first, a blank line, then the moves in SAN with move numbers, wrapped to
+ * lines of at most LINE_LENGTH characters, and the result.  Games are written one at a time, so a
+ * collection of any size can be written without holding it in memory.
+ * <p>
+ * A stored game keeps only its position, so the moves that led there are passed in alongside it.
+ */
+public final class PgnWriter implements AutoCloseable {
+
+    static final int LINE_LENGTH = 79;
+
+    private final Writer out;
+    private final MoveList legal = new MoveList();
+    private final StringBuilder line = new StringBuilder(LINE_LENGTH + 16);
+
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a stored game played from the starting position
+     *
+     * @param data the game; its name and players become the Event, White and Black tags
+     * @param moves every move of the game, in order
+     * @throws IllegalArgumentException if a move is not legal where it is played
+     */
+    public void write(GameData data, List<ChessMove> moves) throws IOException {
+        write(data, new ChessGame(), moves);
+    }
+
+    /**
+     * Writes a stored game played from the given position, which is recorded in a FEN tag unless it
+     * is the usual starting position
+     *
+     * @param start the position the game began in
+     * @throws IllegalArgumentException if a move is not legal where it is played
+     */
+    public void write(GameData data, ChessGame start, List<ChessMove> moves) throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", orUnknown(data.gameName()));
+        tags.put("Site", "?");
+        tags.put("Date", "????.??.??");
+        tags.put("Round", data.gameID() == null ? "?" : data.gameID().toString());
+        tags.put("White", orUnknown(data.whiteUsername()));
+        tags.put("Black", orUnknown(data.blackUsername()));
+        tags.put("Result", null);
+        write(tags, start, moves, null);
+    }
+
+    /**
+     * Writes a game as it was read, e.g. to copy some games of a collection into another
+     */
+    public void write(PgnGame game) throws IOException {
+        String fen = game.tag("FEN");
+        write(new LinkedHashMap<>(game.tags()), fen == null ? new ChessGame() : ChessGame.fromFen(fen),
+                game.moves(), game.result());
+    }
+
+    /**
+     * @param result the result to record, or null to work it out from the final position
+     */
+    private void write(Map<String, String> tags, ChessGame start, List<ChessMove> moves, String result)
+            throws IOException {
+        ChessGame game = new ChessGame(start);
+        StringBuilder movetext = new StringBuilder();
+        for (int i = 0; i < moves.size(); i++) {
+            ChessMove move = moves.get(i);
+            legal.clear();
+            game.allValidMoves(game.getTeamTurn(), legal);
+            if (!legal.contains(MoveList.encode(move))) {
+                throw new IllegalArgumentException(String.format("Move %d (%s) is not legal in %s",
+                        i + 1, move.toNotation(), game.toFen()));
+            }
+            if (game.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+                movetext.append(game.getFullmoveNumber()).append(". ");
+            } else if (i == 0) {
+                // IE the game starts with black to move
+                movetext.append(game.getFullmoveNumber()).append("... ");
+            }
+            movetext.append(San.format(game, move)).append(' ');
+            game.makeUncheckedMove(move);
+        }
+        if (result == null) {
+            result = resultOf(game);
+        }
+        movetext.append(result);
+
+        tags.put("Result", result);
+        if (!start.toFen().equals(new ChessGame().toFen())) {
+            tags.put("SetUp", "1");
+            tags.put("FEN", start.toFen());
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            out.write('[' + tag.getKey() + " \"" + escape(tag.getValue()) + "\"]\n");
+        }
+        out.write('\n');
+        writeWrapped(movetext);
+        out.write("\n\n");
+    }
+
+    /**
+     * @return "1-0", "0-1" or "1/2-1/2" if the game is over, otherwise "*"
+     */
+    static String resultOf(ChessGame game) {
+        GameStatus status = game.getStatus();
+        return switch (status.state()) {
+            case CHECKMATE -> status.team() == ChessGame.TeamColor.WHITE ? "0-1" : "1-0";
+            case STALEMATE, THREEFOLD_REPETITION, FIFTY_MOVE_RULE -> "1/2-1/2";
+            default -> "*";
+        };
+    }
+
+    /**
+     * writes the movetext, breaking lines between tokens
+     */
+    private void writeWrapped(CharSequence movetext) throws IOException {
+        line.setLength(0);
+        int start = 0;
+        while (start < movetext.length()) {
+            int end = start;
+            while (end < movetext.length() && movetext.charAt(end) != ' ') {
+                end++;
+            }
+            if (line.length() > 0 && line.length() + 1 + (end - start) > LINE_LENGTH) {
+                out.write(line.append('\n').toString());
+                line.setLength(0);
+            }
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            line.append(movetext, start, end);
+            start = end + 1;
+        }
+        out.write(line.toString());
+    }
+
+    private static String orUnknown(String value) {
+        return value == null || value.isEmpty() ? "?" : value;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
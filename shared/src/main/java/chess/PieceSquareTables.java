@@ -0,0 +1,147 @@
+package chess;
+
+/**
+ * Values for static evaluation: material plus piece-square tables, which reward pieces for
+ * standing on squares where they tend to be useful (knights in the center, rooks on the seventh
+ * row, and so on).  Each (piece, square) pair has a middlegame and an endgame value, since a king
+ * that should hide behind its pawns early on belongs in the center once the queens are off, and
+ * a passed pawn grows in worth as the board empties.
+ * <p>
+ * A position's score is the sum over its pieces, which ChessBoard keeps current as pieces are
+ * placed and removed, the same way as its Zobrist key.  The two sums are blended by the game
+ * phase: the PHASE weights of the pieces still on the board, from MAX_PHASE at the start down to
+ * 0 with only kings and pawns left.  Scores are in centipawns, positive when white is better off.
+ */
+final class PieceSquareTables {
+
+    // [pieceIndex][square]; black's values are negated, so a board's score is a plain sum
+    static final int[][] MIDDLEGAME = new int[ChessBoard.NUM_PIECE_BOARDS][64];
+    static final int[][] ENDGAME = new int[ChessBoard.NUM_PIECE_BOARDS][64];
+    // [pieceIndex]
+    static final int[] PHASE = new int[ChessBoard.NUM_PIECE_BOARDS];
+    static final int MAX_PHASE = 24;
+
+    // indexed by PieceType.ordinal(): KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] MIDDLEGAME_VALUES = {0, 900, 330, 320, 500, 100};
+    private static final int[] ENDGAME_VALUES = {0, 900, 330, 300, 520, 130};
+    private static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+
+    // tables read as white sees the board, row 8 first; black pieces use the mirror image
+    private static final int[] KING_MIDDLEGAME = {
+            // stay tucked away behind the pawns
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20,
+    };
+    private static final int[] KING_ENDGAME = {
+            // come out to the center, where it can support pawns and fence in the enemy king
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] ROOK = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0,
+    };
+    private static final int[] PAWN_MIDDLEGAME = {
+            // advance, and keep the center pawns off their home squares
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+    };
+    private static final int[] PAWN_ENDGAME = {
+            // race for the last row
+              0,   0,   0,   0,   0,   0,   0,   0,
+             90,  90,  90,  90,  90,  90,  90,  90,
+             60,  60,  60,  60,  60,  60,  60,  60,
+             35,  35,  35,  35,  35,  35,  35,  35,
+             20,  20,  20,  20,  20,  20,  20,  20,
+             10,  10,  10,  10,  10,  10,  10,  10,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0,
+    };
+
+    static {
+        int[][] middlegameTables = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+        int[][] endgameTables = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+        for (int type = 0; type < 6; type++) {
+            int white = type;
+            int black = 6 + type;
+            for (int square = 0; square < 64; square++) {
+                // the tables list row 8 first, so flip the row of a bit index for white
+                MIDDLEGAME[white][square] = MIDDLEGAME_VALUES[type] + middlegameTables[type][square ^ 56];
+                MIDDLEGAME[black][square] = -(MIDDLEGAME_VALUES[type] + middlegameTables[type][square]);
+                ENDGAME[white][square] = ENDGAME_VALUES[type] + endgameTables[type][square ^ 56];
+                ENDGAME[black][square] = -(ENDGAME_VALUES[type] + endgameTables[type][square]);
+            }
+            PHASE[white] = PHASE_WEIGHTS[type];
+            PHASE[black] = PHASE_WEIGHTS[type];
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    /**
+     * Blends middlegame and endgame scores by how much material is left
+     *
+     * @param phase sum of PHASE over the pieces on the board; more than MAX_PHASE (after promotions)
+     *              counts as MAX_PHASE
+     * @return the score, in centipawns
+     */
+    static int taper(int middlegame, int endgame, int phase) {
+        int weight = Math.min(phase, MAX_PHASE);
+        return (middlegame * weight + endgame * (MAX_PHASE - weight)) / MAX_PHASE;
+    }
+}
@@ -0,0 +1,181 @@
+package chess;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of legal moves by position, shared by every game in a process.  Most games
+ * pass through the same openings, so once one game has generated the moves of a position, the
+ * others read them back instead (see ChessGame.setSharedPositionCache).  Whether the team is in
+ * check is stored too; with the moves, that settles checkmate and stalemate.
+ * <p>
+ * Entries live in one flat long[], ENTRY_LONGS to an entry, at a slot chosen by the position's
+ * Zobrist key.  An entry is a check word, a header, and one bitboard of target squares for each of
+ * the team's pieces in square order (a team never has more than 16).  Promotions are stored as the
+ * one target and expanded into the four promotion pieces when read back.
+ * <p>
+ * The table takes no locks.  Threads may write the same slot at once and tear an entry, so the
+ * check word holds the key XORed with every other word of the entry: a reader recomputes it from
+ * the words it actually read, and treats a mismatch (a torn entry, or another position in the
+ * slot) as a miss.  This relies on reads and writes of a single long being atomic, which they are
+ * on 64-bit JVMs.  A newer position always replaces an older one.
+ */
+public final class PositionCache {
+
+    static final int ENTRY_LONGS = 18;
+    private static final int MAX_PIECES = ENTRY_LONGS - 2;
+    // set in every header, so an entry never reads back as empty
+    private static final long USED = 1L << 63;
+    private static final long IN_CHECK = 1L;
+
+    private final long[] table;
+    private final int slotMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * @param megabytes memory to use; rounded down to a power of two number of entries
+     */
+    public PositionCache(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("a position cache needs at least 1 MB");
+        }
+        long entries = (megabytes * 1024L * 1024L) / (ENTRY_LONGS * Long.BYTES);
+        int slots = Integer.highestOneBit((int) Math.min(entries, 1 << 26));
+        this.table = new long[slots * ENTRY_LONGS];
+        this.slotMask = slots - 1;
+    }
+
+    /**
+     * Looks a position up, and on a hit appends its legal moves, grouped by start square
+     *
+     * @param key identifies the position and the team (see ChessGame.legalMovesKey)
+     * @param board the position; its pieces say which bitboard belongs to which square
+     * @param team the team whose moves were stored
+     * @param squareStart as in LegalMoveGenerator.addAllMoves
+     * @return -1 on a miss; otherwise 1 if the team is in check, 0 if not
+     */
+    int probe(long key, ChessBoard board, ChessGame.TeamColor team, MoveList moves, int[] squareStart) {
+        int base = slotOf(key);
+        long check = table[base];
+        if (check == 0) {
+            misses.increment();
+            return -1;
+        }
+        long header = table[base + 1];
+        long verify = check ^ header;
+
+        int start = moves.size();
+        long friendly = board.getOccupancy( team );
+        long pawns = board.getPieceBitboard( team, ChessPiece.PieceType.PAWN );
+        int piece = 0;
+        for (int square = 0; square < 64; square++) {
+            squareStart[square] = moves.size();
+            if ((friendly & (1L << square)) == 0) {
+                continue;
+            }
+            if (piece == MAX_PIECES) {
+                // more pieces than an entry holds, so this cannot be the stored position
+                verify = ~key;
+                break;
+            }
+            long targets = table[base + 2 + piece++];
+            verify ^= targets;
+            boolean pawn = (pawns & (1L << square)) != 0;
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros( targets );
+                int row = to >>> 3;
+                if (pawn && (row == 7 || row == 0)) {
+                    for (ChessPiece.PieceType promotion : PieceMovesCalculator.PROMOTION_PIECES) {
+                        moves.add( MoveList.encode( square, to, promotion ) );
+                    }
+                } else {
+                    moves.add( MoveList.encode( square, to, null ) );
+                }
+            }
+        }
+        for (; piece < MAX_PIECES; piece++) {
+            verify ^= table[base + 2 + piece];
+        }
+        if (verify != key) {
+            moves.truncate( start );
+            collisions.increment();
+            return -1;
+        }
+        squareStart[64] = moves.size();
+        hits.increment();
+        return (header & IN_CHECK) != 0 ? 1 : 0;
+    }
+
+    /**
+     * Saves a position's legal moves, replacing whatever was in its slot.  Positions where the team
+     * has more pieces than an entry holds are not saved.
+     *
+     * @param squareStart where each square's moves start in moves, as filled by addAllMoves
+     */
+    void store(long key, ChessBoard board, ChessGame.TeamColor team, MoveList moves, int[] squareStart,
+               boolean inCheck) {
+        long friendly = board.getOccupancy( team );
+        if (Long.bitCount( friendly ) > MAX_PIECES) {
+            return;
+        }
+        int base = slotOf(key);
+        long header = USED | (inCheck ? IN_CHECK : 0);
+        long check = key ^ header;
+        int piece = 0;
+        for (long pieces = friendly; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros( pieces );
+            long targets = 0;
+            for (int i = squareStart[square]; i < squareStart[square + 1]; i++) {
+                targets |= 1L << MoveList.to( moves.get( i ) );
+            }
+            table[base + 2 + piece++] = targets;
+            check ^= targets;
+        }
+        for (; piece < MAX_PIECES; piece++) {
+            table[base + 2 + piece] = 0;
+        }
+        table[base + 1] = header;
+        table[base] = check;
+    }
+
+    private int slotOf(long key) {
+        // the low bits of the key pick the slot; all 64 are checked by the check word
+        return ((int) key & slotMask) * ENTRY_LONGS;
+    }
+
+    /**
+     * @return number of positions the table holds
+     */
+    public int capacity() {
+        return slotMask + 1;
+    }
+
+    /**
+     * @return lookups that found the position
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return lookups that found an empty slot
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return lookups that found another position in the slot (or one being written at the time)
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PositionCache[%d entries, %d hits, %d misses, %d collisions]",
+                capacity(), getHits(), getMisses(), getCollisions());
+    }
+}
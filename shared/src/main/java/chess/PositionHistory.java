@@ -0,0 +1,122 @@
+package chess;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.Arrays;
+
+/**
+ * The position keys (see ChessGame.positionKey) of the positions played since the last pawn move
+ * or capture, for detecting repetitions.  Positions before a pawn move or capture can never recur,
+ * so ChessGame starts a new history at each one; that keeps the history at most about a hundred
+ * entries long in any game that follows the fifty-move rule.
+ * <p>
+ * Alongside the list in play order, a small open-addressing hash table counts how often each key
+ * occurs, so asking how many times a position has been seen is a single probe rather than a scan.
+ * Only the list is serialized; the table is rebuilt from it the first time it is needed.
+ */
+@JsonAdapter(PositionHistoryTypeAdapter.class)
+final class PositionHistory {
+
+    private long[] keys;
+    private int size;
+
+    // key -> occurrences; slots with a count of 0 are either empty or keys that were popped
+    private transient long[] tableKeys;
+    private transient int[] tableCounts;
+    private transient int tableUsed;
+
+    PositionHistory() {
+        this.keys = new long[16];
+    }
+
+    PositionHistory(PositionHistory original) {
+        this.keys = Arrays.copyOf(original.keys, Math.max(original.size, 16));
+        this.size = original.size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return keys[index];
+    }
+
+    void push(long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        if (tableKeys != null) {
+            adjustCount(key, 1);
+        }
+        keys[size++] = key;
+    }
+
+    /**
+     * Removes the most recently pushed key
+     */
+    void pop() {
+        if (tableKeys != null) {
+            adjustCount(keys[size - 1], -1);
+        }
+        size--;
+    }
+
+    /**
+     * @return how many times the key occurs in the history
+     */
+    int count(long key) {
+        if (tableKeys == null) {
+            rebuildTable();
+        }
+        return tableCounts[findSlot(key)];
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it would go
+     */
+    private int findSlot(long key) {
+        int mask = tableKeys.length - 1;
+        int slot = (int) key & mask;
+        while (!isEmptySlot(slot) && tableKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean isEmptySlot(int slot) {
+        return tableCounts[slot] == 0 && tableKeys[slot] == 0;
+    }
+
+    /**
+     * changes a key's count; the table must match keys[0 .. size) when this is called
+     */
+    private void adjustCount(long key, int delta) {
+        if (2 * (tableUsed + 1) > tableKeys.length) {
+            // keep the table at most half full so probes stay short
+            rebuildTable();
+        }
+        int slot = findSlot(key);
+        if (isEmptySlot(slot)) {
+            tableKeys[slot] = key;
+            tableUsed++;
+        }
+        tableCounts[slot] += delta;
+    }
+
+    private void rebuildTable() {
+        int capacity = 32;
+        while (capacity < 4 * (size + 1)) {
+            capacity *= 2;
+        }
+        tableKeys = new long[capacity];
+        tableCounts = new int[capacity];
+        tableUsed = 0;
+        for (int i = 0; i < size; i++) {
+            adjustCount(keys[i], 1);
+        }
+    }
+}
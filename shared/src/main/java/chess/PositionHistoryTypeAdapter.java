@@ -0,0 +1,42 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Serializes a PositionHistory as a plain array of its keys, oldest first
+ */
+final class PositionHistoryTypeAdapter extends TypeAdapter<PositionHistory> {
+
+    @Override
+    public void write(JsonWriter out, PositionHistory history) throws IOException {
+        if (history == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int i = 0; i < history.size(); i++) {
+            out.value(history.get(i));
+        }
+        out.endArray();
+    }
+
+    @Override
+    public PositionHistory read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        PositionHistory history = new PositionHistory();
+        in.beginArray();
+        while (in.hasNext()) {
+            history.push(in.nextLong());
+        }
+        in.endArray();
+        return history;
+    }
+}
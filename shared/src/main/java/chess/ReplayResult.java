@@ -0,0 +1,59 @@
+package chess;
+
+/**
+ * The outcome of replaying a sequence of moves with GameReplay
+ *
+ * @param game the game after every move up to (not including) the first bad one
+ * @param failedIndex index in the sequence of the first move that could not be made, or -1 if
+ *                    every move was made
+ * @param failure why that move could not be made, or null if every move was made
+ */
+public record ReplayResult(ChessGame game, int failedIndex, Failure failure) {
+
+    public enum Failure {
+        // text that is neither a coordinate move ("e2e4") nor SAN ("Nf3"), or a bad packed move
+        NOT_A_MOVE,
+        // nothing stands on the start square
+        NO_PIECE,
+        // the piece on the start square belongs to the team that is not to move
+        WRONG_TEAM,
+        // the piece cannot move there, or doing so would leave its king in check
+        ILLEGAL,
+        // SAN that fits more than one legal move
+        AMBIGUOUS,
+        // the team to move is checkmated or stalemated
+        GAME_OVER,
+        // the position to start from could not be read, e.g. a bad FEN tag in PGN; no move was made
+        BAD_START_POSITION
+    }
+
+    /**
+     * @return True if every move was made
+     */
+    public boolean isComplete() {
+        return failure == null;
+    }
+
+    /**
+     * @return a sentence describing the first bad move (or bad start position), or null if there was none
+     */
+    public String describeFailure() {
+        if (failure == null) {
+            return null;
+        }
+        String move = "Move " + (failedIndex + 1);
+        return switch (failure) {
+            case NOT_A_MOVE -> move + " is not a move";
+            case NO_PIECE -> move + " starts on an empty square";
+            case WRONG_TEAM -> move + " moves a " + other(game.getTeamTurn()) + " piece on " + game.getTeamTurn() + "'s turn";
+            case ILLEGAL -> move + " is not a legal move for " + game.getTeamTurn();
+            case AMBIGUOUS -> move + " matches more than one legal move";
+            case GAME_OVER -> move + " comes after the game has ended (" + game.getStatus().state() + ")";
+            case BAD_START_POSITION -> "The starting position could not be read";
+        };
+    }
+
+    private static ChessGame.TeamColor other(ChessGame.TeamColor team) {
+        return team == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,230 @@
+package chess;
+
+/**
+ * Reads and writes Standard Algebraic Notation, the move notation of printed games and PGN files:
+ * the piece letter (none for pawns), just enough of the start square to tell apart two pieces
+ * that could both make the move, "x" for a capture, the end square, and "=Q" for a promotion, as
+ * in "Nf3", "exd5", "R1e2", "e8=Q" or "O-O".  "+" and "#" mark check and checkmate.
+ * <p>
+ * SAN only makes sense against a position, so both directions take the game the move is made in,
+ * and go through that game's legal moves.
+ */
+public final class San {
+
+    // indexed by PieceType.ordinal()
+    private static final String PIECE_LETTERS = "KQBNRP";
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    // failures reported by parsePacked
+    static final int NOT_A_MOVE = -1;
+    static final int NO_LEGAL_MOVE = -2;
+    static final int AMBIGUOUS = -3;
+
+    private San() {
+    }
+
+    /**
+     * Finds the legal move a SAN string describes.  Check marks and annotations ("+", "#", "!",
+     * "?") are ignored, and castling may be written with zeros.
+     *
+     * @param game the position the move is made in, with the team to move set
+     * @param san the move, e.g. "Nbd7"
+     * @return the move
+     * @throws IllegalArgumentException if san is malformed, or matches no legal move or several
+     */
+    public static ChessMove parse(ChessGame game, String san) {
+        int move = parsePacked(game, san, new MoveList());
+        if (move < 0) {
+            throw new IllegalArgumentException(describeFailure(move, san));
+        }
+        return MoveList.toChessMove(move);
+    }
+
+    /**
+     * Same as parse, but reports failure with a negative number rather than an exception, for
+     * callers that read many moves and expect some to be bad
+     *
+     * @param moves a buffer to list the legal moves in; its contents are replaced
+     * @return the packed move (see MoveList), or NOT_A_MOVE, NO_LEGAL_MOVE or AMBIGUOUS
+     */
+    static int parsePacked(ChessGame game, String san, MoveList moves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        ChessBoard board = game.getBoard();
+        moves.clear();
+        game.allValidMoves(turn, moves);
+
+        String body = san.substring(0, end);
+        if (body.equals("O-O") || body.equals("0-0") || body.equals("O-O-O") || body.equals("0-0-0")) {
+            int from = turn == ChessGame.TeamColor.WHITE ? CastlingRights.WHITE_KING_SQUARE : CastlingRights.BLACK_KING_SQUARE;
+            int to = body.length() == 3 ? from + 2 : from - 2;
+            long king = board.getPieceBitboard(turn, ChessPiece.PieceType.KING);
+            int castle = MoveList.encode(from, to, null);
+            return ((king & (1L << from)) != 0) && moves.contains(castle) ? castle : NO_LEGAL_MOVE;
+        }
+
+        // read from the back: promotion, then the end square, then whatever is left
+        ChessPiece.PieceType promotion = null;
+        if (end > 0 && Character.isUpperCase(san.charAt(end - 1))) {
+            int type = PIECE_LETTERS.indexOf(san.charAt(end - 1));
+            if (type < 1 || type > 4) {
+                return NOT_A_MOVE;
+            }
+            promotion = PIECE_TYPES[type];
+            end--;
+            if (end > 0 && san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end < 2) {
+            return NOT_A_MOVE;
+        }
+        int toCol = san.charAt(end - 2) - 'a';
+        int toRow = san.charAt(end - 1) - '1';
+        if (toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7) {
+            return NOT_A_MOVE;
+        }
+        int to = toRow * 8 + toCol;
+        end -= 2;
+
+        int i = 0;
+        ChessPiece.PieceType pieceType = ChessPiece.PieceType.PAWN;
+        if (i < end && Character.isUpperCase(san.charAt(i))) {
+            int type = PIECE_LETTERS.indexOf(san.charAt(i));
+            if (type < 0) {
+                return NOT_A_MOVE;
+            }
+            pieceType = PIECE_TYPES[type];
+            i++;
+        }
+        int fromCol = -1;
+        int fromRow = -1;
+        for (; i < end; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '1';
+            } else if (c != 'x' && c != ':') {
+                return NOT_A_MOVE;
+            }
+        }
+
+        long pieces = board.getPieceBitboard(turn, pieceType);
+        int found = NO_LEGAL_MOVE;
+        for (int k = 0; k < moves.size(); k++) {
+            int move = moves.get(k);
+            int from = MoveList.from(move);
+            if (MoveList.to(move) != to || MoveList.promotion(move) != promotion
+                    || (pieces & (1L << from)) == 0
+                    || (fromCol >= 0 && (from & 7) != fromCol)
+                    || (fromRow >= 0 && (from >>> 3) != fromRow)) {
+                continue;
+            }
+            if (found >= 0) {
+                return AMBIGUOUS;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * @return a message for a failure code from parsePacked
+     */
+    static String describeFailure(int code, String san) {
+        return switch (code) {
+            case NOT_A_MOVE -> "Not a move in algebraic notation: " + san;
+            case AMBIGUOUS -> "More than one legal move matches " + san;
+            default -> "No legal move matches " + san;
+        };
+    }
+
+    /**
+     * Writes a legal move in SAN, with "+" or "#" if it gives check or checkmate.  The move is
+     * played and taken back on the game to find out, so the game must not be in use elsewhere at
+     * the time.
+     *
+     * @param game the position the move is made in, with the team to move set
+     * @param move a legal move in that position
+     * @return the move, e.g. "Nbd7" or "exd8=Q+"
+     */
+    public static String format(ChessGame game, ChessMove move) {
+        StringBuilder san = new StringBuilder(8);
+        ChessBoard board = game.getBoard();
+        int packed = MoveList.encode(move);
+        int from = MoveList.from(packed);
+        int to = MoveList.to(packed);
+        int piece = board.pieceIndexAt(from);
+        ChessPiece.PieceType pieceType = PIECE_TYPES[piece % 6];
+        boolean capture = (board.getOccupancy() & (1L << to)) != 0;
+
+        if (pieceType == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else if (pieceType == ChessPiece.PieceType.PAWN) {
+            if ((from & 7) != (to & 7)) {
+                // a diagonal pawn move is always a capture, en passant included
+                san.append((char) ('a' + (from & 7))).append('x');
+            }
+            appendSquare(san, to);
+            if (move.getPromotionPiece() != null) {
+                san.append('=').append(PIECE_LETTERS.charAt(move.getPromotionPiece().ordinal()));
+            }
+        } else {
+            san.append(PIECE_LETTERS.charAt(pieceType.ordinal()));
+            appendDisambiguation(san, game, pieceType, from, to);
+            if (capture) {
+                san.append('x');
+            }
+            appendSquare(san, to);
+        }
+
+        MoveUndo undo = game.makeUncheckedMove(move);
+        ChessGame.TeamColor enemy = game.getTeamTurn();
+        if (game.isInCheck(enemy)) {
+            san.append(game.hasAnyLegalMove(enemy) ? '+' : '#');
+        }
+        game.unmakeMove(undo);
+        return san.toString();
+    }
+
+    /**
+     * adds the start file, row, or both if another piece of the same kind could also move to the
+     * end square
+     */
+    private static void appendDisambiguation(StringBuilder san, ChessGame game, ChessPiece.PieceType pieceType,
+                                             int from, int to) {
+        MoveList moves = new MoveList();
+        game.allValidMoves(game.getTeamTurn(), moves);
+        long pieces = game.getBoard().getPieceBitboard(game.getTeamTurn(), pieceType);
+        boolean others = false;
+        boolean sameCol = false;
+        boolean sameRow = false;
+        for (int k = 0; k < moves.size(); k++) {
+            int other = MoveList.from(moves.get(k));
+            if (other == from || MoveList.to(moves.get(k)) != to || (pieces & (1L << other)) == 0) {
+                continue;
+            }
+            others = true;
+            sameCol |= (other & 7) == (from & 7);
+            sameRow |= (other >>> 3) == (from >>> 3);
+        }
+        if (!others) {
+            return;
+        }
+        if (!sameCol) {
+            san.append((char) ('a' + (from & 7)));
+        } else if (!sameRow) {
+            san.append((char) ('1' + (from >>> 3)));
+        } else {
+            appendSquare(san, from);
+        }
+    }
+
+    private static void appendSquare(StringBuilder san, int square) {
+        san.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+}
@@ -0,0 +1,243 @@
+package chess;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Perfect-play results for the simplest endgames: king and queen, king and rook, or king and pawn
+ * against a lone king, and two bare kings.  The three-piece tables are files written by
+ * TablebaseGenerator and memory-mapped here, so every process on a machine shares one copy of them
+ * and a lookup is a single byte read.
+ * <p>
+ * Each table holds one byte for every placement of the two kings and the extra piece with either
+ * team to move, ENTRIES in all, after a HEADER_BYTES header (magic number, format version, the
+ * extra piece's PieceType ordinal, entry count).  Tables are kept with white as the team that has
+ * the extra piece; positions where black has it are looked up with the board turned around.  An
+ * entry is 0 for a draw, n > 0 if the team to move mates in n plies, -(n + 1) if the team to move
+ * is mated in n plies (so -1 is checkmate on the board), and ILLEGAL for placements that cannot
+ * arise in a game.
+ * <p>
+ * Castling is not in the tables, so positions where it is still possible are not looked up, and
+ * neither is the fifty-move rule, which a long enough mate can run into.
+ */
+public final class Tablebase implements AutoCloseable {
+
+    static final int MAGIC = 0x4354424C; // "CTBL"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    // team to move (1 bit), king with the extra piece, lone king, extra piece (6 bits each)
+    static final int ENTRIES = 1 << 19;
+    static final byte ILLEGAL = Byte.MIN_VALUE;
+
+    // the extra piece of each table; pawn last, since its promotions lead into the others
+    static final ChessPiece.PieceType[] PIECES = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.PAWN};
+
+    // indexed by PieceType.ordinal()
+    private static final String PIECE_LETTERS = "kqbnrp";
+    private static final TablebaseResult DRAW = new TablebaseResult(null, 0);
+
+    // indexed by PieceType.ordinal(); null where the table's file was not found
+    private final MappedByteBuffer[] tables = new MappedByteBuffer[6];
+    private final FileChannel[] channels = new FileChannel[6];
+
+    private Tablebase() {
+    }
+
+    /**
+     * Maps whichever tables the directory holds; endgames without a file are simply not covered
+     *
+     * @param directory where TablebaseGenerator wrote its files
+     * @return the tablebase
+     * @throws IOException if a table cannot be read or is not a tablebase file
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        try {
+            for (ChessPiece.PieceType piece : PIECES) {
+                Path file = directory.resolve(fileName(piece));
+                if (Files.exists(file)) {
+                    tablebase.map(piece, file);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            tablebase.close();
+            throw e;
+        }
+        return tablebase;
+    }
+
+    /**
+     * Finds where the shared module's build writes the tables, target/tablebases: beside the
+     * compiled classes (or jar) this class was loaded from, or else under a working directory that
+     * is the project or one of its modules
+     *
+     * @return the first of those that exists, or the first of them if none does
+     */
+    public static Path defaultDirectory() {
+        List<Path> candidates = new ArrayList<>();
+        try {
+            CodeSource source = Tablebase.class.getProtectionDomain().getCodeSource();
+            if (source != null) {
+                // IE shared/target/classes or shared/target/shared.jar
+                candidates.add(Path.of(source.getLocation().toURI()).resolveSibling("tablebases"));
+            }
+        } catch (URISyntaxException | RuntimeException e) {
+            // not loaded from a file, so only the working directory is left to look in
+        }
+        candidates.add(Path.of("shared", "target", "tablebases"));
+        candidates.add(Path.of("..", "shared", "target", "tablebases"));
+        for (Path candidate : candidates) {
+            if (Files.isDirectory(candidate)) {
+                return candidate;
+            }
+        }
+        return candidates.get(0);
+    }
+
+    /**
+     * Maps the tables in a directory, first generating any that are missing (a few seconds each)
+     *
+     * @param directory where the tables are kept; created if need be
+     * @return the tablebase, covering every endgame
+     * @throws IOException if a table cannot be written or read
+     */
+    public static Tablebase openOrGenerate(Path directory) throws IOException {
+        TablebaseGenerator.generateMissing(directory);
+        return open(directory);
+    }
+
+    private void map(ChessPiece.PieceType piece, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channels[piece.ordinal()] = channel;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        checkHeader(buffer, channel.size(), piece, file);
+        tables[piece.ordinal()] = buffer;
+    }
+
+    /**
+     * @throws IOException unless the buffer holds a whole table for the piece
+     */
+    static void checkHeader(ByteBuffer buffer, long size, ChessPiece.PieceType piece, Path file)
+            throws IOException {
+        if (size < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a tablebase: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unknown tablebase version " + buffer.getInt(4) + ": " + file);
+        }
+        if (buffer.getInt(8) != piece.ordinal() || buffer.getInt(12) != ENTRIES || size != HEADER_BYTES + ENTRIES) {
+            throw new IOException("tablebase is truncated or for another endgame: " + file);
+        }
+    }
+
+    /**
+     * @return name of the file holding the table for a king and the piece against a king, e.g. "kqk.tb"
+     */
+    static String fileName(ChessPiece.PieceType piece) {
+        return "k" + PIECE_LETTERS.charAt(piece.ordinal()) + "k.tb";
+    }
+
+    /**
+     * @param teamToMove 0 if the team with the extra piece is to move, 1 if the lone king is
+     * @return index of a placement in a table
+     */
+    static int index(int teamToMove, int strongKing, int weakKing, int piece) {
+        return (teamToMove << 18) | (strongKing << 12) | (weakKing << 6) | piece;
+    }
+
+    /**
+     * @return True if the tablebase has the table for a king and the piece against a king
+     */
+    public boolean covers(ChessPiece.PieceType piece) {
+        return tables[piece.ordinal()] != null;
+    }
+
+    /**
+     * @return names of the table files that were not found, e.g. "kpk.tb"; empty if every endgame is covered
+     */
+    public List<String> missingFiles() {
+        List<String> missing = new ArrayList<>();
+        for (ChessPiece.PieceType piece : PIECES) {
+            if (!covers(piece)) {
+                missing.add(fileName(piece));
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Looks a game's position up
+     *
+     * @return the result with perfect play, or null if the position is not in the tablebase
+     */
+    public TablebaseResult probe(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.getOccupancy();
+        long whiteKing = board.getPieceBitboard( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING );
+        long blackKing = board.getPieceBitboard( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING );
+        if (whiteKing == 0 || blackKing == 0 || Long.bitCount( occupied ) > 3) {
+            return null;
+        }
+        if (Long.bitCount( occupied ) == 2) {
+            // IE bare kings: neither team can ever checkmate
+            return DRAW;
+        }
+        if (game.getCastlingRights() != CastlingRights.NONE) {
+            return null;
+        }
+        int pieceSquare = Long.numberOfTrailingZeros( occupied & ~whiteKing & ~blackKing );
+        int pieceIndex = board.pieceIndexAt( pieceSquare );
+        MappedByteBuffer table = tables[pieceIndex % 6];
+        if (table == null) {
+            return null;
+        }
+
+        ChessGame.TeamColor strong = pieceIndex < 6 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        int strongKing = Long.numberOfTrailingZeros( strong == ChessGame.TeamColor.WHITE ? whiteKing : blackKing );
+        int weakKing = Long.numberOfTrailingZeros( strong == ChessGame.TeamColor.WHITE ? blackKing : whiteKing );
+        if (strong == ChessGame.TeamColor.BLACK) {
+            // turn the board around so the extra piece is white's, as in the tables
+            strongKing ^= 56;
+            weakKing ^= 56;
+            pieceSquare ^= 56;
+        }
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        int value = table.get( HEADER_BYTES + index( turn == strong ? 0 : 1, strongKing, weakKing, pieceSquare ) );
+        if (value == ILLEGAL || value == 0) {
+            return value == 0 ? DRAW : null;
+        }
+        ChessGame.TeamColor other = turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return value > 0 ? new TablebaseResult(turn, value) : new TablebaseResult(other, -value - 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (int i = 0; i < channels.length; i++) {
+            tables[i] = null;
+            if (channels[i] != null) {
+                try {
+                    channels[i].close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+                channels[i] = null;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package chess;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Writes the Tablebase files by retrograde analysis: every placement of the pieces is listed with
+ * its legal moves, checkmates are marked as lost, and the results are then worked backward from
+ * there one ply at a time.  A position is won in n + 1 plies if some move leads to a position
+ * lost in n, and lost in n + 1 if every move leads to a won position, the slowest of them won in
+ * n.  Whatever is still unsettled once a pass settles nothing new is a draw.
+ * <p>
+ * Moves come from LegalMoveGenerator on a ChessBoard, the same as in a game.  A pawn promoting
+ * leaves the table; its result is read from the queen or rook table (hence those are built first),
+ * or is a draw for a bishop or knight, neither of which can mate alone.  So is the lone king
+ * capturing the extra piece.
+ * <p>
+ * Usage: TablebaseGenerator directory.  The shared module's build runs it (see shared/pom.xml), writing
+ * the tables to shared/target/tablebases, where the server looks by default.
+ */
+public final class TablebaseGenerator {
+
+    private final ChessBoard board = new ChessBoard();
+    private final MoveList moves = new MoveList(64);
+    // indexed by PieceType.ordinal(); the finished tables, for promotions to look up
+    private final byte[][] tables = new byte[6][];
+
+    private TablebaseGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TablebaseGenerator directory");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        generateMissing(Path.of(args[0]));
+        System.out.printf("tablebases ready in %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Writes every table the directory does not already hold.  Existing tables are only read if
+     * the pawn table is missing, since its promotions are looked up in them.
+     *
+     * @param directory where the tables are kept; created if need be
+     * @throws IOException if a table cannot be written, or an existing one cannot be read
+     */
+    public static void generateMissing(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator();
+        boolean pawnMissing = !Files.exists(directory.resolve(Tablebase.fileName(ChessPiece.PieceType.PAWN)));
+        for (ChessPiece.PieceType piece : Tablebase.PIECES) {
+            Path file = directory.resolve(Tablebase.fileName(piece));
+            if (Files.exists(file)) {
+                if (pawnMissing && piece != ChessPiece.PieceType.PAWN) {
+                    generator.tables[piece.ordinal()] = read(file, piece);
+                }
+            } else {
+                generator.tables[piece.ordinal()] = generator.generate(piece);
+                write(file, piece, generator.tables[piece.ordinal()]);
+            }
+        }
+    }
+
+    private static byte[] read(Path file, ChessPiece.PieceType piece) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        Tablebase.checkHeader(ByteBuffer.wrap(bytes), bytes.length, piece, file);
+        return Arrays.copyOfRange(bytes, Tablebase.HEADER_BYTES, bytes.length);
+    }
+
+    private static void write(Path file, ChessPiece.PieceType piece, byte[] table) throws IOException {
+        // written aside and moved into place, so a reader never maps half a table
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(piece.ordinal());
+            out.writeInt(Tablebase.ENTRIES);
+            out.write(table);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Works out the table for a king and the piece (white's) against a lone king
+     */
+    byte[] generate(ChessPiece.PieceType piece) {
+        byte[] values = new byte[Tablebase.ENTRIES];
+        // successors of position i are successors[first[i]] up to successors[first[i + 1]]: a table
+        // index, or for a move that leaves the table, ~ its result as an unsigned byte
+        int[] first = new int[Tablebase.ENTRIES + 1];
+        int[] successors = new int[Tablebase.ENTRIES * 8];
+        int count = 0;
+
+        for (int index = 0; index < Tablebase.ENTRIES; index++) {
+            first[index] = count;
+            int teamToMove = index >>> 18;
+            int whiteKing = (index >>> 12) & 63;
+            int blackKing = (index >>> 6) & 63;
+            int pieceSquare = index & 63;
+            if (!canPlace(piece, whiteKing, blackKing, pieceSquare)) {
+                values[index] = Tablebase.ILLEGAL;
+                continue;
+            }
+            board.placePiece( whiteKing, ChessBoard.pieceIndex( ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING ) );
+            board.placePiece( blackKing, ChessBoard.pieceIndex( ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING ) );
+            board.placePiece( pieceSquare, ChessBoard.pieceIndex( ChessGame.TeamColor.WHITE, piece ) );
+            ChessGame.TeamColor us = teamToMove == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+
+            if (board.isSquareAttacked( teamToMove == 0 ? blackKing : whiteKing, us )) {
+                // IE the team that just moved left its own king in check
+                values[index] = Tablebase.ILLEGAL;
+            } else {
+                LegalMoveGenerator generator = new LegalMoveGenerator( board, us, -1, CastlingRights.NONE );
+                moves.clear();
+                generator.addAllMoves( moves, null );
+                if (moves.isEmpty()) {
+                    // checkmate is lost on the spot; stalemate is a draw
+                    values[index] = (byte) (generator.isInCheck() ? -1 : 0);
+                }
+                if (count + moves.size() > successors.length) {
+                    successors = Arrays.copyOf( successors, successors.length * 2 );
+                }
+                for (int i = 0; i < moves.size(); i++) {
+                    successors[count++] = successor( piece, teamToMove, whiteKing, blackKing, pieceSquare, moves.get( i ) );
+                }
+            }
+            board.removePiece( whiteKing );
+            board.removePiece( blackKing );
+            board.removePiece( pieceSquare );
+        }
+        first[Tablebase.ENTRIES] = count;
+
+        // each pass reads only results settled by earlier passes, so a position is settled at
+        // the shortest distance it can be
+        byte[] next = values.clone();
+        boolean settledAny = true;
+        while (settledAny) {
+            settledAny = false;
+            for (int index = 0; index < Tablebase.ENTRIES; index++) {
+                if (values[index] != 0 || first[index] == first[index + 1]) {
+                    // settled, illegal, or stalemate
+                    continue;
+                }
+                int fastestWin = Integer.MAX_VALUE;
+                int slowestLoss = 0;
+                boolean allWon = true;
+                for (int i = first[index]; i < first[index + 1]; i++) {
+                    int successor = successors[i];
+                    // from the point of view of the team to move after the move
+                    int value = successor >= 0 ? values[successor] : (byte) ~successor;
+                    if (value < 0) {
+                        fastestWin = Math.min( fastestWin, -value );
+                    } else if (value == 0) {
+                        allWon = false;
+                    } else {
+                        slowestLoss = Math.max( slowestLoss, value );
+                    }
+                }
+                if (fastestWin != Integer.MAX_VALUE) {
+                    next[index] = toByte( fastestWin );
+                    settledAny = true;
+                } else if (allWon) {
+                    next[index] = toByte( -slowestLoss - 2 );
+                    settledAny = true;
+                }
+            }
+            System.arraycopy( next, 0, values, 0, Tablebase.ENTRIES );
+        }
+        return values;
+    }
+
+    /**
+     * @return False for placements no game can reach: two pieces on one square, or a pawn on the
+     * first or last row.  Kings next to each other are left to the check test.
+     */
+    private static boolean canPlace(ChessPiece.PieceType piece, int whiteKing, int blackKing, int pieceSquare) {
+        if (whiteKing == blackKing || whiteKing == pieceSquare || blackKing == pieceSquare) {
+            return false;
+        }
+        int row = pieceSquare >>> 3;
+        return piece != ChessPiece.PieceType.PAWN || (row != 0 && row != 7);
+    }
+
+    /**
+     * @return table index of the position after a move, or ~ its result if the move leaves the table
+     */
+    private int successor(ChessPiece.PieceType piece, int teamToMove, int whiteKing, int blackKing, int pieceSquare,
+                          int move) {
+        int from = MoveList.from( move );
+        int to = MoveList.to( move );
+        if (teamToMove == 1) {
+            // the lone king either takes the piece, leaving bare kings, or steps somewhere else
+            return to == pieceSquare ? ~0 : Tablebase.index( 0, whiteKing, to, pieceSquare );
+        }
+        if (from == whiteKing) {
+            return Tablebase.index( 1, to, blackKing, pieceSquare );
+        }
+        ChessPiece.PieceType promotion = MoveList.promotion( move );
+        if (promotion == null) {
+            return Tablebase.index( 1, whiteKing, blackKing, to );
+        }
+        byte[] promoted = tables[promotion.ordinal()];
+        int value = promoted == null ? 0 : promoted[Tablebase.index( 1, whiteKing, blackKing, to )];
+        return ~(value & 0xFF);
+    }
+
+    private static byte toByte(int value) {
+        if (value <= Tablebase.ILLEGAL || value > Byte.MAX_VALUE) {
+            throw new IllegalStateException("distance to mate out of range: " + value);
+        }
+        return (byte) value;
+    }
+}
@@ -0,0 +1,26 @@
+package chess;
+
+/**
+ * How a position ends with perfect play from both teams, as read from an endgame tablebase
+ *
+ * @param winner the team that can force checkmate, or null if neither can and the game is a draw
+ * @param pliesToMate moves until checkmate, counting each team's moves separately, when the winner
+ *                    mates as quickly as it can and the loser holds out as long as it can; 0 for a
+ *                    draw (and for a team that is already checkmated)
+ */
+public record TablebaseResult(ChessGame.TeamColor winner, int pliesToMate) {
+
+    /**
+     * @return True if neither team can force checkmate
+     */
+    public boolean isDraw() {
+        return winner == null;
+    }
+
+    /**
+     * @return the winner's moves until checkmate, the "N" in "mate in N"; 0 for a draw
+     */
+    public int movesToMate() {
+        return (pliesToMate + 1) / 2;
+    }
+}
@@ -0,0 +1,56 @@
+package chess;
+
+/**
+ * Random 64-bit keys for Zobrist hashing.  A position's key is the XOR of the key for every
+ * (piece, square) pair on the board, plus a key for black to move, one for the file of an
+ * available en passant capture, and one for each castling right still held.  Since XOR
+ * undoes itself, placing or removing a piece updates the key with a single XOR instead of
+ * rehashing the whole board.
+ * <p>
+ * The keys come from a fixed seed, so the same position has the same key in every process; keys
+ * may be stored and compared across runs.
+ */
+final class Zobrist {
+
+    // [pieceIndex][square]
+    static final long[][] PIECE_SQUARE = new long[ChessBoard.NUM_PIECE_BOARDS][64];
+    static final long BLACK_TO_MOVE;
+    // [file], a = 0
+    static final long[] EN_PASSANT_FILE = new long[8];
+    // [CastlingRights mask] -> XOR of the keys of the rights in the mask
+    static final long[] CASTLING = new long[16];
+
+    static {
+        long[] state = {0x2545F4914F6CDD1DL};
+        for (long[] pieceKeys : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                pieceKeys[square] = next(state);
+            }
+        }
+        BLACK_TO_MOVE = next(state);
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILE[file] = next(state);
+        }
+        long[] rightKeys = {next(state), next(state), next(state), next(state)};
+        for (int rights = 0; rights < 16; rights++) {
+            for (int right = 0; right < 4; right++) {
+                if ((rights & (1 << right)) != 0) {
+                    CASTLING[rights] ^= rightKeys[right];
+                }
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * SplitMix64; small, fast, and well distributed, which is all these keys need
+     */
+    private static long next(long[] state) {
+        long z = (state[0] += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
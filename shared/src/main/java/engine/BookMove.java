@@ -0,0 +1,13 @@
+package engine;
+
+import chess.ChessMove;
+
+/**
+ * One move an opening book has for a position
+ *
+ * @param move the move
+ * @param san the move in standard algebraic notation, e.g. "Nf3"
+ * @param weight how many games of the book's collection played the move here
+ */
+public record BookMove(ChessMove move, String san, int weight) {
+}
@@ -0,0 +1,385 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+import chess.MoveUndo;
+
+import java.util.Arrays;
+
+/**
+ * Chooses a move by searching the game tree.
+ * <p>
+ * The search is an iterative-deepening alpha-beta (negamax) search: it searches one ply deep, then
+ * two, and so on until a limit in SearchLimits is reached, keeping the best move of the deepest
+ * finished iteration.  At the end of each line a quiescence search plays out captures, so the
+ * static evaluation is never taken in the middle of an exchange.
+ * <p>
+ * Alpha-beta prunes the most when the best move is tried first, so moves are ordered: the best
+ * move of the previous iteration at the root, then captures by most valuable victim and least
+ * valuable attacker (MVV-LVA), then "killer" quiet moves that caused a cutoff at the same ply
+ * elsewhere in the tree, then the remaining quiet moves by how often they have caused cutoffs
+ * (the history heuristic).
+ * <p>
+ * Given an OpeningBook, the engine plays the book's most played move whenever the position is in
+ * the book, without searching.
+ * <p>
+ * An Engine keeps its move ordering tables and buffers between searches, so it is not thread
+ * safe; use one per thread.  The game passed to search is copied, not changed.
+ */
+public final class Engine {
+
+    /**
+     * Score of checkmating the opponent right now; a mate n plies away scores MATE_SCORE - n
+     */
+    public static final int MATE_SCORE = 100_000;
+
+    private static final int INFINITY = MATE_SCORE + 1;
+    // quiescence search can run past the deepest iteration, so leave it room
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH + 32;
+    // how many nodes pass between looks at the clock
+    private static final int CLOCK_INTERVAL = 1024;
+
+    // move ordering bands; within each, the score orders moves further
+    private static final int PREVIOUS_BEST = 1 << 30;
+    private static final int CAPTURE = 1 << 28;
+    private static final int KILLER = 1 << 27;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final int[][] orderScores = new int[MAX_PLY][];
+    // two quiet moves per ply that recently caused a beta cutoff
+    private final int[][] killers = new int[MAX_PLY][2];
+    // [from][to] -> how much cutoffs by this quiet move were worth
+    private final int[][] history = new int[64][64];
+
+    private OpeningBook openingBook;
+    // for checking the book's moves without allocating
+    private final MoveList bookScratch = new MoveList(32);
+
+    private ChessGame game;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean stopped;
+
+    public Engine() {
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+            orderScores[ply] = new int[64];
+        }
+    }
+
+    /**
+     * @param openingBook book to play from before searching, or null to always search
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Finds the best move for the team whose turn it is
+     *
+     * @param position the game to search; it is not changed
+     * @param limits when to stop
+     * @return the best move found and how the search went; a depth of 0 with a move means the move
+     * came from the opening book
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        long start = System.nanoTime();
+        if (openingBook != null) {
+            ChessMove bookMove = openingBook.bestMove(position, bookScratch);
+            if (bookMove != null) {
+                return new SearchResult(bookMove, 0, 0, 0, System.nanoTime() - start);
+            }
+        }
+        this.game = new ChessGame(position);
+        this.nodes = 0;
+        this.nodeLimit = limits.maxNodes();
+        this.deadline = limits.maxMillis() >= Long.MAX_VALUE / 1_000_000
+                ? Long.MAX_VALUE : start + limits.maxMillis() * 1_000_000;
+        this.stopped = false;
+        for (int[] pair : killers) {
+            pair[0] = 0;
+            pair[1] = 0;
+        }
+        for (int[] row : history) {
+            Arrays.fill(row, 0);
+        }
+
+        MoveList rootMoves = moveLists[0];
+        rootMoves.clear();
+        game.allValidMoves(game.getTeamTurn(), rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE_SCORE : 0;
+            return new SearchResult(null, score, 0, 0, System.nanoTime() - start);
+        }
+
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= limits.maxDepth(); depth++) {
+            int iterationBest = -1;
+            int iterationScore = -INFINITY;
+            scoreMoves(rootMoves, 0, bestMove, false);
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = pickNext(rootMoves, 0, i);
+                MoveUndo undo = game.makeUncheckedMove(MoveList.toChessMove(move));
+                int score = -alphaBeta(depth - 1, -INFINITY, -iterationScore, 1);
+                game.unmakeMove(undo);
+                if (stopped) {
+                    break;
+                }
+                if (score > iterationScore) {
+                    iterationScore = score;
+                    iterationBest = move;
+                }
+            }
+            if (stopped) {
+                // a partial iteration looked at the previous best move first, so any move it
+                // prefers scored better than that move at the new depth
+                if (iterationBest >= 0) {
+                    bestMove = iterationBest;
+                    bestScore = iterationScore;
+                }
+                break;
+            }
+            bestMove = iterationBest;
+            bestScore = iterationScore;
+            completedDepth = depth;
+            if (isMateScore(bestScore) || rootMoves.size() == 1) {
+                // nothing deeper will change the answer
+                break;
+            }
+        }
+        return new SearchResult(MoveList.toChessMove(bestMove), bestScore, completedDepth, nodes,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * @return True if the score is a forced checkmate, for either team
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) > MATE_SCORE - MAX_PLY;
+    }
+
+    private int alphaBeta(int depth, int alpha, int beta, int ply) {
+        if (shouldStop()) {
+            return 0;
+        }
+        if (game.getHalfmoveClock() >= 100 || game.getRepetitionCount() >= 2) {
+            // a repeated position is scored as the draw it can be turned into
+            return 0;
+        }
+        ChessGame.TeamColor us = game.getTeamTurn();
+        boolean inCheck = game.isInCheck(us);
+        if (inCheck && ply < SearchLimits.MAX_DEPTH) {
+            // look one ply further at checks, so a mate just past the horizon is not missed
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiesce(alpha, beta, ply);
+        }
+        nodes++;
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        game.allValidMoves(us, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -(MATE_SCORE - ply) : 0;
+        }
+
+        scoreMoves(moves, ply, -1, false);
+        int best = -INFINITY;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            boolean capture = isCapture(move);
+            MoveUndo undo = game.makeUncheckedMove(MoveList.toChessMove(move));
+            int score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1);
+            game.unmakeMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                if (!capture) {
+                    rememberCutoff(move, depth, ply);
+                }
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * searches only captures and promotions (or every move, when in check) until the position is
+     * quiet, so the evaluation is not taken halfway through an exchange
+     */
+    private int quiesce(int alpha, int beta, int ply) {
+        if (shouldStop()) {
+            return 0;
+        }
+        nodes++;
+        ChessGame.TeamColor us = game.getTeamTurn();
+        boolean inCheck = game.isInCheck(us);
+        int best = -INFINITY;
+        if (!inCheck) {
+            // "standing pat": the team to move can usually do at least as well as doing nothing
+            best = Evaluator.evaluate(game);
+            if (best >= beta || ply >= MAX_PLY - 1) {
+                return best;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        game.allValidMoves(us, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -(MATE_SCORE - ply) : 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(game);
+        }
+
+        scoreMoves(moves, ply, -1, !inCheck);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            if (orderScores[ply][i] < 0) {
+                // the rest are quiet moves, which are skipped when not in check
+                break;
+            }
+            MoveUndo undo = game.makeUncheckedMove(MoveList.toChessMove(move));
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            game.unmakeMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    private boolean shouldStop() {
+        if (stopped) {
+            return true;
+        }
+        if (nodes >= nodeLimit
+                || ((nodes % CLOCK_INTERVAL) == 0 && System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * fills orderScores[ply] for the moves, higher first
+     *
+     * @param previousBest move to put first, or -1
+     * @param capturesOnly if true, quiet moves get a negative score so the caller can skip them
+     */
+    private void scoreMoves(MoveList moves, int ply, int previousBest, boolean capturesOnly) {
+        if (orderScores[ply].length < moves.size()) {
+            orderScores[ply] = new int[moves.size() * 2];
+        }
+        int[] scores = orderScores[ply];
+        ChessBoard board = game.getBoard();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score;
+            ChessPiece.PieceType promotion = MoveList.promotion(move);
+            if (move == previousBest) {
+                score = PREVIOUS_BEST;
+            } else if (isCapture(move) || promotion != null) {
+                ChessPiece victim = pieceAt(board, MoveList.to(move));
+                // en passant captures a pawn from a square other than the one moved to
+                int victimValue = victim == null ? (promotion == null ? Evaluator.PIECE_VALUES[5] : 0)
+                        : Evaluator.PIECE_VALUES[victim.getPieceType().ordinal()];
+                int promotionValue = promotion == null ? 0 : Evaluator.PIECE_VALUES[promotion.ordinal()];
+                ChessPiece attacker = pieceAt(board, MoveList.from(move));
+                score = CAPTURE + (victimValue + promotionValue) * 16
+                        - Evaluator.PIECE_VALUES[attacker.getPieceType().ordinal()] / 16;
+            } else if (capturesOnly) {
+                score = -1;
+            } else if (move == killers[ply][0]) {
+                score = KILLER + 1;
+            } else if (move == killers[ply][1]) {
+                score = KILLER;
+            } else {
+                score = Math.min(history[MoveList.from(move)][MoveList.to(move)], KILLER - 1);
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * selection sort, one step at a time: moves the best-scored remaining move into slot i.  Most
+     * nodes cut off after the first move or two, so sorting the whole list would be wasted work.
+     */
+    private int pickNext(MoveList moves, int ply, int i) {
+        int[] scores = orderScores[ply];
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            int move = moves.get(best);
+            swap(moves, i, best);
+            int score = scores[best];
+            scores[best] = scores[i];
+            scores[i] = score;
+            return move;
+        }
+        return moves.get(i);
+    }
+
+    private static void swap(MoveList moves, int i, int j) {
+        int move = moves.get(i);
+        moves.set(i, moves.get(j));
+        moves.set(j, move);
+    }
+
+    private void rememberCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        history[MoveList.from(move)][MoveList.to(move)] += depth * depth;
+    }
+
+    /**
+     * @return True if the move takes a piece, counting en passant (a pawn moving diagonally)
+     */
+    private boolean isCapture(int move) {
+        ChessBoard board = game.getBoard();
+        int to = MoveList.to(move);
+        if ((board.getOccupancy() & (1L << to)) != 0) {
+            return true;
+        }
+        int from = MoveList.from(move);
+        ChessPiece mover = pieceAt(board, from);
+        return mover.getPieceType() == ChessPiece.PieceType.PAWN && ((from ^ to) & 7) != 0;
+    }
+
+    private static ChessPiece pieceAt(ChessBoard board, int square) {
+        return board.getPiece(ChessPosition.of((square >>> 3) + 1, (square & 7) + 1));
+    }
+}
@@ -0,0 +1,33 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+/**
+ * Static evaluation: material plus piece-square tables, which reward pieces for standing on
+ * squares where they tend to be useful (knights in the center, rooks on the seventh row, and so on),
+ * as scored by ChessBoard.getEvaluation.  Scores are in centipawns, for white unless noted.
+ */
+public final class Evaluator {
+
+    // indexed by PieceType.ordinal(): KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN; for ordering captures
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluator() {
+    }
+
+    /**
+     * @return the position's value for the team whose turn it is, in centipawns
+     */
+    public static int evaluate(ChessGame game) {
+        int score = evaluate(game.getBoard());
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * @return the board's value for white, in centipawns; negative when black is better off
+     */
+    public static int evaluate(ChessBoard board) {
+        return board.getEvaluation();
+    }
+}
@@ -0,0 +1,230 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import chess.San;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The moves played in a collection of games, by position, read from a file built by
+ * OpeningBookBuilder.  The file is memory-mapped rather than read onto the heap, so the operating
+ * system shares one copy of it among every process that opens it, and only the pages a lookup
+ * touches are ever read from disk.
+ * <p>
+ * The file is a HEADER_BYTES header (magic number, format version, record count) followed by
+ * fixed-width records of RECORD_BYTES: the position key (ChessGame.positionKey), the move packed
+ * as in MoveList, and the move's weight.  Records are sorted by key, and by weight from highest
+ * to lowest within a key, so finding a position is a binary search and its most played move is
+ * the first record found.  find, key, move and weight allocate nothing, nor does bestMove given a
+ * scratch buffer, beyond the move it returns.
+ */
+public final class OpeningBook implements AutoCloseable {
+
+    static final int MAGIC = 0x43424F4B; // "CBOK"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 12;
+    // one bit each in pickMove's mask of legal records
+    static final int MAX_CANDIDATES = Long.SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook(FileChannel channel, MappedByteBuffer buffer, int size) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file
+     *
+     * @param file a file written by OpeningBookBuilder
+     * @return the book
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("not an opening book: " + file);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("unknown opening book version " + buffer.getInt(4) + ": " + file);
+            }
+            long records = buffer.getLong(8);
+            if (records < 0 || HEADER_BYTES + records * RECORD_BYTES != channel.size()) {
+                throw new IOException("opening book is truncated: " + file);
+            }
+            return new OpeningBook(channel, buffer, (int) records);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of records, IE (position, move) pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param positionKey a position's key (see ChessGame.positionKey)
+     * @return index of the position's first (most played) record, or -1 if the book does not have
+     * the position
+     */
+    public int find(long positionKey) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) < positionKey) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < size && key(low) == positionKey ? low : -1;
+    }
+
+    /**
+     * @return position key of a record
+     */
+    public long key(int index) {
+        return buffer.getLong(HEADER_BYTES + index * RECORD_BYTES);
+    }
+
+    /**
+     * @return move of a record, packed as in MoveList
+     */
+    public int move(int index) {
+        return buffer.getShort(HEADER_BYTES + index * RECORD_BYTES + 8) & 0xFFFF;
+    }
+
+    /**
+     * @return weight of a record: how many games played the move
+     */
+    public int weight(int index) {
+        return buffer.getShort(HEADER_BYTES + index * RECORD_BYTES + 10) & 0xFFFF;
+    }
+
+    /**
+     * @return the most played legal move in the game's position, or null if the book has none
+     */
+    public ChessMove bestMove(ChessGame game) {
+        long key = game.positionKey();
+        int first = find(key);
+        return first < 0 ? null : bestMove(game, key, first, new MoveList(32));
+    }
+
+    /**
+     * Same as bestMove(game), but checks the book's moves with a caller-supplied buffer, so a
+     * lookup allocates nothing unless it finds a move
+     *
+     * @param scratch buffer for ChessGame.isLegalMove; cleared and overwritten
+     */
+    public ChessMove bestMove(ChessGame game, MoveList scratch) {
+        long key = game.positionKey();
+        int first = find(key);
+        return first < 0 ? null : bestMove(game, key, first, scratch);
+    }
+
+    private ChessMove bestMove(ChessGame game, long key, int first, MoveList scratch) {
+        // a book built from other games can share a key with this position by chance, so only legal
+        // moves are trusted; just the book's candidates are checked, not every move in the position
+        for (int i = first; i < size && key(i) == key; i++) {
+            if (game.isLegalMove(move(i), scratch)) {
+                return MoveList.toChessMove(move(i));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks a legal book move at random, more played moves more often, so a bot does not play the
+     * same opening every game.  Only a position's MAX_CANDIDATES most played moves are considered.
+     *
+     * @param random a uniformly distributed random number, e.g. from Random.nextLong
+     * @return the move, or null if the book has none for the game's position
+     */
+    public ChessMove pickMove(ChessGame game, long random) {
+        long key = game.positionKey();
+        int first = find(key);
+        return first < 0 ? null : pickMove(game, random, key, first, new MoveList(32));
+    }
+
+    /**
+     * Same as pickMove(game, random), but checks the book's moves with a caller-supplied buffer, so
+     * a lookup allocates nothing unless it finds a move
+     *
+     * @param scratch buffer for ChessGame.isLegalMove; cleared and overwritten
+     */
+    public ChessMove pickMove(ChessGame game, long random, MoveList scratch) {
+        long key = game.positionKey();
+        int first = find(key);
+        return first < 0 ? null : pickMove(game, random, key, first, scratch);
+    }
+
+    private ChessMove pickMove(ChessGame game, long random, long key, int first, MoveList scratch) {
+        // bit n is set if record first + n is legal, so each move is checked once
+        long legal = 0;
+        long total = 0;
+        for (int n = 0; n < MAX_CANDIDATES && first + n < size && key(first + n) == key; n++) {
+            if (game.isLegalMove(move(first + n), scratch)) {
+                legal |= 1L << n;
+                total += weight(first + n);
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        long pick = Math.floorMod(random, total);
+        for (long rest = legal; ; rest &= rest - 1) {
+            int i = first + Long.numberOfTrailingZeros(rest);
+            pick -= weight(i);
+            if (pick < 0) {
+                return MoveList.toChessMove(move(i));
+            }
+        }
+    }
+
+    /**
+     * @return every legal book move in the game's position, most played first
+     */
+    public List<BookMove> moves(ChessGame game) {
+        long key = game.positionKey();
+        List<BookMove> moves = new ArrayList<>();
+        int first = find(key);
+        if (first < 0) {
+            return moves;
+        }
+        MoveList scratch = new MoveList(32);
+        for (int i = first; i < size && key(i) == key; i++) {
+            if (game.isLegalMove(move(i), scratch)) {
+                ChessMove move = MoveList.toChessMove(move(i));
+                moves.add(new BookMove(move, San.format(game, move), weight(i)));
+            }
+        }
+        return moves;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the mapping itself lasts until the buffer is garbage collected
+        channel.close();
+    }
+}
@@ -0,0 +1,140 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.PgnGame;
+import chess.PgnReader;
+import chess.San;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an OpeningBook from a collection of games in PGN (Portable Game Notation).  Each game
+ * is played out from the starting position for up to maxPlies moves, and every (position, move)
+ * pair seen is counted; the count is the move's weight in the book.
+ * <p>
+ * Usage: OpeningBookBuilder games.pgn book.bin [maxPlies] [minGames]
+ */
+public final class OpeningBookBuilder {
+
+    private final int maxPlies;
+    private final int minGames;
+    // position key -> packed move -> games that played it
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+    private int games;
+    private int rejectedGames;
+
+    /**
+     * @param maxPlies how many moves into each game to record
+     * @param minGames moves played in fewer games than this are left out of the book
+     */
+    public OpeningBookBuilder(int maxPlies, int minGames) {
+        this.maxPlies = maxPlies;
+        this.minGames = minGames;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookBuilder games.pgn book.bin [maxPlies] [minGames]");
+            System.exit(2);
+        }
+        int maxPlies = args.length > 2 ? Integer.parseInt(args[2]) : 24;
+        int minGames = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPlies, minGames);
+        try (Reader pgn = Files.newBufferedReader(Path.of(args[0]))) {
+            builder.addPgn(pgn);
+        }
+        int records = builder.write(Path.of(args[1]));
+        System.out.printf("%,d games (%,d with illegal moves), %,d book records%n",
+                builder.games, builder.rejectedGames, records);
+    }
+
+    /**
+     * Adds every game in a PGN collection that starts from the starting position, reading one game
+     * at a time (see PgnReader)
+     */
+    public void addPgn(Reader pgn) throws IOException {
+        new PgnReader(pgn).forEach(this::addGame);
+    }
+
+    private void addGame(PgnGame pgnGame) {
+        if (pgnGame.tag("FEN") != null) {
+            return;
+        }
+        games++;
+        ChessGame game = new ChessGame();
+        int plies = Math.min(pgnGame.moves().size(), maxPlies);
+        if (!pgnGame.replay().isComplete() && plies < maxPlies) {
+            // recording stops at the first move that cannot be read or is not legal
+            rejectedGames++;
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            ChessMove move = pgnGame.moves().get(ply);
+            counts.computeIfAbsent(game.positionKey(), key -> new HashMap<>(4))
+                    .merge(move.encode(), 1, Integer::sum);
+            game.makeUncheckedMove(move);
+        }
+    }
+
+    /**
+     * Adds one game, given as SAN moves from the starting position.  Recording stops at the first
+     * move that cannot be read or is not legal.
+     */
+    public void addGame(List<String> sanMoves) {
+        games++;
+        ChessGame game = new ChessGame();
+        int plies = Math.min(sanMoves.size(), maxPlies);
+        for (int ply = 0; ply < plies; ply++) {
+            ChessMove move;
+            try {
+                move = San.parse(game, sanMoves.get(ply));
+            } catch (IllegalArgumentException e) {
+                rejectedGames++;
+                return;
+            }
+            counts.computeIfAbsent(game.positionKey(), key -> new HashMap<>(4))
+                    .merge(move.encode(), 1, Integer::sum);
+            game.makeUncheckedMove(move);
+        }
+    }
+
+    /**
+     * Writes the book
+     *
+     * @return number of records written
+     */
+    public int write(Path file) throws IOException {
+        List<long[]> records = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Integer>> position : counts.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                if (move.getValue() >= minGames) {
+                    long weight = Math.min(move.getValue(), 0xFFFF);
+                    records.add(new long[]{position.getKey(), move.getKey(), weight});
+                }
+            }
+        }
+        // by key, then most played first
+        records.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeLong(records.size());
+            for (long[] record : records) {
+                out.writeLong(record[0]);
+                out.writeShort((int) record[1]);
+                out.writeShort((int) record[2]);
+            }
+        }
+        return records.size();
+    }
+}
@@ -0,0 +1,42 @@
+package engine;
+
+/**
+ * How much work a search may do.  The search stops at whichever limit it reaches first, and
+ * answers with the best move of the deepest iteration it finished.
+ *
+ * @param maxDepth deepest iteration to search, in plies
+ * @param maxMillis wall-clock time budget, in milliseconds
+ * @param maxNodes number of positions the search may visit
+ */
+public record SearchLimits(int maxDepth, long maxMillis, long maxNodes) {
+
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (maxDepth < 1 || maxMillis < 1 || maxNodes < 1) {
+            throw new IllegalArgumentException("search limits must be positive");
+        }
+        maxDepth = Math.min(maxDepth, MAX_DEPTH);
+    }
+
+    /**
+     * @return limits that stop only at the given depth
+     */
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that stop only when the time is up
+     */
+    public static SearchLimits millis(long maxMillis) {
+        return new SearchLimits(MAX_DEPTH, maxMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that stop only after visiting the given number of positions
+     */
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, maxNodes);
+    }
+}
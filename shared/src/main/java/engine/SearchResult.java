@@ -0,0 +1,23 @@
+package engine;
+
+import chess.ChessMove;
+
+/**
+ * What a search found
+ *
+ * @param bestMove the move to play, or null if the team to move has no legal move
+ * @param score value of the position after bestMove for the team to move, in centipawns (100 is a
+ *              pawn); see Engine.isMateScore for forced mates
+ * @param depth deepest iteration completed, in plies
+ * @param nodes positions visited, including those in quiescence search
+ * @param elapsedNanos wall-clock time the search took
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long elapsedNanos) {
+
+    /**
+     * @return search speed, for sizing how many searches a machine can run at once
+     */
+    public long nodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+}
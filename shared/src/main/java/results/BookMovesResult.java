@@ -0,0 +1,8 @@
+package results;
+
+import engine.BookMove;
+
+import java.util.List;
+
+public record BookMovesResult(List<BookMove> moves) {
+}
@@ -4,27 +4,30 @@ import chess.ChessGame;
 import chess.ChessMove;
 
 public class MakeMoveCommand extends UserGameCommand{
-    String start;
-    String end;
+    // sent as a short token like "e7e8q" (see ChessMove.toNotation)
     ChessMove move;
 
 
     ChessGame.TeamColor color;
 
-    public MakeMoveCommand(String authToken, Integer gameID, String start, String end, ChessMove move, ChessGame.TeamColor color) {
+    public MakeMoveCommand(String authToken, Integer gameID, ChessMove move, ChessGame.TeamColor color) {
         super(CommandType.MAKE_MOVE, authToken, gameID);
-        this.start = start;
-        this.end = end;
         this.move = move;
         this.color = color;
     }
 
+    /**
+     * @return the move's end square, e.g. "E4"
+     */
     public String getEnd() {
-        return end;
+        return move.getEndPosition().toNotation().toUpperCase();
     }
 
+    /**
+     * @return the move's start square, e.g. "E2"
+     */
     public String getStart() {
-        return start;
+        return move.getStartPosition().toNotation().toUpperCase();
     }
 
     public ChessMove getMove() {
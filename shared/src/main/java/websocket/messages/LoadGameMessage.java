@@ -4,20 +4,30 @@ import model.GameData;
 
 public class LoadGameMessage extends ServerMessage{
     private GameData game;
+    // the board's static evaluation for white, in centipawns (see ChessBoard.getEvaluation)
+    private int evaluation;
 
     public LoadGameMessage(GameData game){
         super(ServerMessageType.LOAD_GAME);
         this.game = game;
+        if ((game != null) && (game.game() != null)) {
+            this.evaluation = game.game().getBoard().getEvaluation();
+        }
     }
 
     public GameData getGame() {
         return game;
     }
 
+    public int getEvaluation() {
+        return evaluation;
+    }
+
     @Override
     public String toString() {
         return "LoadGameMessage{" +
                 "game=" + game +
+                ", evaluation=" + evaluation +
                 '}';
     }
 }
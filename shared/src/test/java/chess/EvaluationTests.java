@@ -0,0 +1,60 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+public class EvaluationTests {
+
+    @Test
+    @DisplayName("Mirror Images Score Opposite")
+    public void symmetry() {
+        Assertions.assertEquals(0, new ChessGame().getBoard().getEvaluation());
+        ChessBoard white = ChessBoard.fromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R");
+        ChessBoard black = ChessBoard.fromFen("rnbqk2r/pppp1ppp/5n2/2b1p3/4P3/2N2N2/PPPP1PPP/R1BQKB1R");
+        Assertions.assertEquals(white.getEvaluation(), -black.getEvaluation());
+        // a knight up outweighs anything the tables give
+        Assertions.assertTrue(ChessBoard.fromFen("rnbqkb1r/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR").getEvaluation() > 200);
+    }
+
+    @Test
+    @DisplayName("Kings Head For The Center Once The Pieces Are Gone")
+    public void taper() {
+        int cornerKing = ChessBoard.fromFen("4k3/pppppppp/8/8/8/8/PPPPPPPP/K7").getEvaluation();
+        int centralKing = ChessBoard.fromFen("4k3/pppppppp/8/8/3K4/8/PPPPPPPP/8").getEvaluation();
+        Assertions.assertTrue(centralKing > cornerKing);
+
+        cornerKing = ChessBoard.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/KNBQ1BNR").getEvaluation();
+        centralKing = ChessBoard.fromFen("rnbqkbnr/pppppppp/8/8/3K4/8/PPPPPPPP/1NBQ1BNR").getEvaluation();
+        Assertions.assertTrue(centralKing < cornerKing);
+    }
+
+    @Test
+    @DisplayName("Kept Score Matches A Fresh Count Through Moves And Take-Backs")
+    public void incremental() {
+        Random random = new Random(7);
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        MoveList moves = new MoveList();
+        Deque<MoveUndo> undos = new ArrayDeque<>();
+        int start = game.getBoard().getEvaluation();
+        for (int ply = 0; ply < 200; ply++) {
+            moves.clear();
+            game.allValidMoves(game.getTeamTurn(), moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            undos.push(game.makeUncheckedMove(MoveList.toChessMove(moves.get(random.nextInt(moves.size())))));
+            ChessBoard fresh = ChessBoard.fromFen(game.getBoard().toFen());
+            Assertions.assertEquals(fresh.getEvaluation(), game.getBoard().getEvaluation(), game.toFen());
+            Assertions.assertEquals(fresh.getEvaluation(), new ChessBoard(game.getBoard()).getEvaluation());
+        }
+        while (!undos.isEmpty()) {
+            game.unmakeMove(undos.pop());
+        }
+        Assertions.assertEquals(start, game.getBoard().getEvaluation());
+    }
+}
@@ -0,0 +1,55 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class GameCodecTests {
+
+    @Test
+    @DisplayName("Starting Game Encodes Compactly")
+    public void startingPosition() {
+        byte[] bytes = new ChessGame().toBytes();
+        Assertions.assertEquals(32, bytes.length);
+        ChessGame decoded = ChessGame.fromBytes(bytes);
+        Assertions.assertEquals(new ChessGame(), decoded);
+        Assertions.assertEquals(new ChessGame().toFen(), decoded.toFen());
+    }
+
+    @Test
+    @DisplayName("Round Trip Keeps Clocks, En Passant, History and Status")
+    public void midGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        // knights out and back, twice, then a pawn's two-square advance
+        int[][] moves = {{1, 2, 3, 3}, {8, 2, 6, 3}, {3, 3, 1, 2}, {6, 3, 8, 2},
+                {1, 2, 3, 3}, {8, 2, 6, 3}, {3, 3, 1, 2}, {6, 3, 8, 2}};
+        for (int[] move : moves) {
+            game.makeMove(ChessMove.of(ChessPosition.of(move[0], move[1]), ChessPosition.of(move[2], move[3]), null));
+        }
+        Assertions.assertEquals(GameStatus.State.THREEFOLD_REPETITION, game.getStatus().state());
+
+        ChessGame decoded = ChessGame.fromBytes(game.toBytes());
+        Assertions.assertEquals(game.toFen(), decoded.toFen());
+        Assertions.assertEquals(game.getStatus(), decoded.getStatus());
+        Assertions.assertEquals(game.getRepetitionCount(), decoded.getRepetitionCount());
+        Assertions.assertEquals(game.positionKey(), decoded.positionKey());
+
+        game = ChessGame.fromFen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        decoded = ChessGame.fromBytes(game.toBytes());
+        Assertions.assertEquals(game.toFen(), decoded.toFen());
+        Assertions.assertEquals(game.getPrevMove(), decoded.getPrevMove());
+    }
+
+    @Test
+    @DisplayName("Unknown Or Truncated Encodings Rejected")
+    public void malformed() {
+        byte[] bytes = new ChessGame().toBytes();
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromBytes(Arrays.copyOf(bytes, bytes.length - 3)));
+        bytes[0] = 99;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(bytes));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(new byte[0]));
+    }
+}
@@ -0,0 +1,37 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MoveNotationTests {
+
+    private static final ChessMove PROMOTION =
+            ChessMove.of(ChessPosition.of(7, 5), ChessPosition.of(8, 5), ChessPiece.PieceType.QUEEN);
+
+    @Test
+    @DisplayName("Moves Pack and Print Compactly")
+    public void packedAndNotation() {
+        Assertions.assertEquals("e7e8q", PROMOTION.toNotation());
+        Assertions.assertSame(PROMOTION, ChessMove.fromNotation("e7e8q"));
+        Assertions.assertSame(PROMOTION, ChessMove.fromNotation("E7E8Q"));
+        Assertions.assertSame(PROMOTION, ChessMove.decode(PROMOTION.encode()));
+        Assertions.assertEquals(PROMOTION.encode(), (short) PROMOTION.encode());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessMove.fromNotation("e7e9"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessMove.fromNotation("e7e8x"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessMove.decode(0x7FFF));
+    }
+
+    @Test
+    @DisplayName("Gson Writes Tokens and Reads Both Layouts")
+    public void gson() {
+        Gson gson = new Gson();
+        Assertions.assertEquals("\"e7e8q\"", gson.toJson(PROMOTION));
+        Assertions.assertSame(PROMOTION, gson.fromJson("\"e7e8q\"", ChessMove.class));
+        String legacy = "{\"startPosition\":{\"row\":7,\"col\":5},\"endPosition\":{\"row\":8,\"col\":5},"
+                + "\"promotionPiece\":\"QUEEN\"}";
+        Assertions.assertSame(PROMOTION, gson.fromJson(legacy, ChessMove.class));
+    }
+}
@@ -0,0 +1,27 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class PerftTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Parallel Divide Matches Sequential Divide")
+    public void parallelDivide() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        Map<ChessMove, Long> sequential = Perft.divide(game, 4);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Map<ChessMove, Long> parallel = Perft.divideParallel(game, 4, pool);
+        pool.shutdown();
+
+        Assertions.assertEquals(sequential, parallel);
+        Assertions.assertEquals(4_085_603L, Perft.perftParallel(game, 4));
+        Assertions.assertEquals(KIWIPETE, game.toFen(), "the game passed in is left as it was found");
+    }
+}
@@ -0,0 +1,196 @@
+package chess;
+
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PgnTests {
+
+    private static final String PGN = """
+            [Event "F/S Return Match"]
+            [Site "Belgrade, Serbia JUG"]
+            [White "Fischer, Robert J."]
+            [Black "Spassky, Boris V."]
+            [Result "1/2-1/2"]
+            [Annotator "a \\"quoted\\" name"]
+
+            1. e4 e5 2. Nf3 Nc6 3. Bb5 {This opening is called the Ruy Lopez.} 3... a6
+            4. Ba4 Nf6 5. O-O Be7 6. Re1 b5 (6... d6 7. c3) 7. Bb3 d6 $1 8. c3 O-O 9. h3 Nb8
+            10. d4 Nbd7 ; the knight comes round
+            11. c4 c6 12. cxb5 axb5 1/2-1/2
+
+            % an escaped line with [brackets] and 1-0 in it
+            [Event "From a position"]
+            [SetUp "1"]
+            [FEN "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1"]
+
+            1. e4 Kd7 2. e5 Ke6 *
+
+            [Event "Broken"]
+            [Result "0-1"]
+
+            1. e4 e5 2. Ke3 Nc6 0-1
+
+            [Event "No result"]
+
+            1. d4 d5
+            [Event "Bad FEN"]
+            [FEN "not a position"]
+
+            1. e4 *
+            """;
+
+    @Test
+    @DisplayName("Reads Tags, Moves And Results Game By Game")
+    public void read() throws IOException {
+        List<PgnGame> games = new ArrayList<>();
+        new PgnReader(new StringReader(PGN)).forEach(games::add);
+        Assertions.assertEquals(5, games.size());
+
+        PgnGame first = games.get(0);
+        Assertions.assertEquals("Fischer, Robert J.", first.tag("White"));
+        Assertions.assertEquals("a \"quoted\" name", first.tag("Annotator"));
+        Assertions.assertEquals("1/2-1/2", first.result());
+        Assertions.assertTrue(first.replay().isComplete());
+        // the variation and comments are skipped
+        Assertions.assertEquals(24, first.moves().size());
+        Assertions.assertEquals("r1bq1rk1/3nbppp/2pp1n2/1p2p3/3PP3/1B3N1P/PP3PP1/RNBQR1K1 w - - 0 13", first.game().toFen());
+
+        PgnGame second = games.get(1);
+        Assertions.assertEquals("From a position", second.tag("Event"));
+        Assertions.assertEquals("*", second.result());
+        Assertions.assertEquals("8/8/4k3/4P3/8/8/8/4K3 w - - 1 3", second.game().toFen());
+
+        PgnGame broken = games.get(2);
+        Assertions.assertEquals(2, broken.moves().size());
+        Assertions.assertEquals(2, broken.replay().failedIndex());
+        Assertions.assertEquals(ReplayResult.Failure.ILLEGAL, broken.replay().failure());
+        Assertions.assertEquals("0-1", broken.result());
+
+        PgnGame unfinished = games.get(3);
+        Assertions.assertEquals("*", unfinished.result());
+        Assertions.assertEquals(2, unfinished.moves().size());
+
+        Assertions.assertEquals(ReplayResult.Failure.BAD_START_POSITION, games.get(4).replay().failure());
+    }
+
+    @Test
+    @DisplayName("Streams Games From A Channel")
+    public void stream() throws IOException {
+        byte[] bytes = PGN.getBytes(StandardCharsets.UTF_8);
+        try (PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            List<String> events = reader.games().map(game -> game.tag("Event")).collect(Collectors.toList());
+            Assertions.assertEquals(List.of("F/S Return Match", "From a position", "Broken", "No result", "Bad FEN"), events);
+        }
+    }
+
+    @Test
+    @DisplayName("Reads Many Games Without Holding Them")
+    public void manyGames() throws IOException {
+        // generated as it is read, so only the reader ever holds any of it
+        String game = "[Event \"Repeat\"]\n\n1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 {a comment} 4. Ba4 Nf6 1-0\n\n";
+        int count = 20_000;
+        Reader repeated = new Reader() {
+            private long position;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                long total = (long) game.length() * count;
+                if (position == total) {
+                    return -1;
+                }
+                int n = (int) Math.min(length, total - position);
+                for (int i = 0; i < n; i++) {
+                    buffer[offset + i] = game.charAt((int) (position++ % game.length()));
+                }
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        long complete = new PgnReader(repeated).games()
+                .filter(pgnGame -> pgnGame.replay().isComplete() && pgnGame.moves().size() == 8)
+                .count();
+        Assertions.assertEquals(count, complete);
+    }
+
+    @Test
+    @DisplayName("Written Games Read Back The Same")
+    public void write() throws IOException {
+        List<ChessMove> moves = new ArrayList<>();
+        ChessGame game = new ChessGame();
+        for (String san : List.of("f3", "e5", "g4", "Qh4#")) {
+            ChessMove move = San.parse(game, san);
+            moves.add(move);
+            game.makeUncheckedMove(move);
+        }
+        GameData data = new GameData(7, "alice", "bob", "quick \"one\"", game, false);
+        StringWriter text = new StringWriter();
+        new PgnWriter(text).write(data, moves);
+        Assertions.assertEquals("""
+                [Event "quick \\"one\\""]
+                [Site "?"]
+                [Date "????.??.??"]
+                [Round "7"]
+                [White "alice"]
+                [Black "bob"]
+                [Result "0-1"]
+
+                1. f3 e5 2. g4 Qh4# 0-1
+
+                """, text.toString());
+
+        PgnGame read = new PgnReader(new StringReader(text.toString())).next();
+        Assertions.assertEquals(moves, read.moves());
+        Assertions.assertEquals(game, read.game());
+        Assertions.assertEquals("quick \"one\"", read.tag("Event"));
+    }
+
+    @Test
+    @DisplayName("Copies Games, Wrapping Long Move Lists")
+    public void copy() throws IOException {
+        StringWriter text = new StringWriter();
+        PgnWriter writer = new PgnWriter(text);
+        new PgnReader(new StringReader(PGN)).forEach(game -> {
+            if (game.replay().isComplete()) {
+                try {
+                    writer.write(game);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        for (String line : text.toString().split("\n")) {
+            Assertions.assertTrue(line.length() <= PgnWriter.LINE_LENGTH, line);
+        }
+        Assertions.assertTrue(text.toString().contains("[FEN \"4k3/8/8/8/8/8/4P3/4K3 w - - 0 1\"]"));
+
+        List<PgnGame> copies = new ArrayList<>();
+        new PgnReader(new StringReader(text.toString())).forEach(copies::add);
+        Assertions.assertEquals(3, copies.size());
+        Assertions.assertEquals(24, copies.get(0).moves().size());
+        Assertions.assertEquals("8/8/4k3/4P3/8/8/8/4K3 w - - 1 3", copies.get(1).game().toFen());
+    }
+
+    @Test
+    @DisplayName("Refuses To Write Illegal Moves")
+    public void writeIllegal() {
+        GameData data = new GameData(1, "alice", "bob", "bad", new ChessGame());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PgnWriter(new StringWriter())
+                .write(data, List.of(ChessMove.fromNotation("e2e5"))));
+    }
+}
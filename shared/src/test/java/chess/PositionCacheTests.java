@@ -0,0 +1,47 @@
+package chess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+public class PositionCacheTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @AfterEach
+    public void stopSharing() {
+        ChessGame.setSharedPositionCache(null);
+    }
+
+    @Test
+    @DisplayName("Second Game Reads Moves Back From Cache")
+    public void sharedBetweenGames() {
+        PositionCache cache = new PositionCache(1);
+        ChessGame.setSharedPositionCache(cache);
+
+        // a promotion position, so stored targets are expanded back into four moves each
+        String fen = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 b kq - 0 1";
+        HashSet<ChessMove> generated = new HashSet<>(ChessGame.fromFen(fen).allValidMoves(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(0, cache.getHits());
+
+        ChessGame second = ChessGame.fromFen(fen);
+        HashSet<ChessMove> cached = new HashSet<>(second.allValidMoves(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(generated, cached);
+        Assertions.assertEquals(GameStatus.State.NORMAL, second.getStatus().state());
+    }
+
+    @Test
+    @DisplayName("Perft Counts Unchanged With Cache")
+    public void perftWithCache() {
+        PositionCache cache = new PositionCache(1);
+        ChessGame.setSharedPositionCache(cache);
+        Assertions.assertEquals(97_862L, Perft.perft(ChessGame.fromFen(KIWIPETE), 3));
+        Assertions.assertEquals(97_862L, Perft.perft(ChessGame.fromFen(KIWIPETE), 3));
+        Assertions.assertTrue(cache.getHits() > 0);
+        Assertions.assertTrue(cache.getCollisions() + cache.getMisses() > 0);
+    }
+}
@@ -0,0 +1,78 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ReplayTests {
+
+    @Test
+    @DisplayName("Replays Text Moves In Either Notation")
+    public void textMoves() {
+        ChessGame start = new ChessGame();
+        ReplayResult result = GameReplay.replay(start, List.of("e4", "e7e5", "Nf3", "b8c6", "Bc4", "Nf6", "Ng5", "d5",
+                "exd5", "Nxd5", "Nxf7", "Kxf7", "Qf3+", "Ke6", "O-O"));
+        Assertions.assertTrue(result.isComplete());
+        Assertions.assertEquals(-1, result.failedIndex());
+        Assertions.assertEquals("r1bq1b1r/ppp3pp/2n1k3/3np3/2B5/5Q2/PPPP1PPP/RNB2RK1 b - - 3 8", result.game().toFen());
+        // the start position is copied, not played on
+        Assertions.assertEquals(new ChessGame(), start);
+    }
+
+    @Test
+    @DisplayName("Replays Packed Moves")
+    public void packedMoves() {
+        int[] moves = {
+                ChessMove.fromNotation("f2f3").encode(), ChessMove.fromNotation("e7e5").encode(),
+                ChessMove.fromNotation("g2g4").encode(), ChessMove.fromNotation("d8h4").encode()};
+        ReplayResult result = GameReplay.replay(new ChessGame(), moves);
+        Assertions.assertTrue(result.isComplete());
+        Assertions.assertEquals(GameStatus.State.CHECKMATE, result.game().getStatus().state());
+
+        // and a slice of them
+        result = GameReplay.replay(new ChessGame(), moves, 0, 2);
+        Assertions.assertEquals("rnbqkbnr/pppp1ppp/8/4p3/8/5P2/PPPPP1PP/RNBQKBNR w KQkq e6 0 2", result.game().toFen());
+    }
+
+    @Test
+    @DisplayName("Stops At The First Bad Move")
+    public void failures() {
+        assertFailure(2, ReplayResult.Failure.ILLEGAL, "e4", "e5", "e4e5");
+        assertFailure(1, ReplayResult.Failure.NO_PIECE, "e4", "e6e5");
+        assertFailure(1, ReplayResult.Failure.WRONG_TEAM, "e4", "d2d4");
+        assertFailure(1, ReplayResult.Failure.NOT_A_MOVE, "e4", "hello");
+        assertFailure(6, ReplayResult.Failure.AMBIGUOUS, "Nf3", "a6", "Nc3", "a5", "Ne4", "a4", "Ng5");
+        assertFailure(4, ReplayResult.Failure.GAME_OVER, "f3", "e5", "g4", "Qh4#", "a3");
+        // pinned: the knight shields its king from the bishop
+        assertFailure(7, ReplayResult.Failure.ILLEGAL, "e4", "e5", "Bb5", "Nc6", "d4", "d6", "Ng1e2", "Nc6d4");
+
+        ReplayResult result = GameReplay.replay(new ChessGame(), new int[]{ChessMove.fromNotation("e2e4").encode(), 0x7FFF});
+        Assertions.assertEquals(1, result.failedIndex());
+        Assertions.assertEquals(ReplayResult.Failure.NOT_A_MOVE, result.failure());
+    }
+
+    @Test
+    @DisplayName("Long Replays Run Through")
+    public void longReplay() {
+        // knights out and back, over and over; repetition does not stop a replay, as it does not stop makeMove
+        String[] cycle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        int[] moves = new int[100_000];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = ChessMove.fromNotation(cycle[i % 4]).encode();
+        }
+        ReplayResult result = GameReplay.replay(new ChessGame(), moves);
+        Assertions.assertTrue(result.isComplete());
+        Assertions.assertEquals(new ChessGame(), result.game());
+        Assertions.assertEquals(GameStatus.State.THREEFOLD_REPETITION, result.game().getStatus().state());
+    }
+
+    private static void assertFailure(int index, ReplayResult.Failure failure, String... moves) {
+        ReplayResult result = GameReplay.replay(new ChessGame(), List.of(moves));
+        Assertions.assertFalse(result.isComplete());
+        Assertions.assertEquals(index, result.failedIndex(), result.describeFailure());
+        Assertions.assertEquals(failure, result.failure(), result.describeFailure());
+        Assertions.assertTrue(result.describeFailure().startsWith("Move " + (index + 1)));
+    }
+}
@@ -0,0 +1,53 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SanTests {
+
+    @Test
+    @DisplayName("Every Legal Move Survives Format Then Parse")
+    public void roundTrip() {
+        String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "4k3/8/8/8/8/8/1p6/R3K3 b - - 0 1",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+        };
+        for (String fen : fens) {
+            ChessGame game = ChessGame.fromFen(fen);
+            for (ChessMove move : game.allValidMoves(game.getTeamTurn())) {
+                String san = San.format(game, move);
+                Assertions.assertEquals(move, San.parse(game, san), san + " in " + fen);
+            }
+            Assertions.assertEquals(fen, game.toFen(), "formatting leaves the game as it was");
+        }
+    }
+
+    @Test
+    @DisplayName("Disambiguation, Castling, Promotion and Mate")
+    public void notation() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Assertions.assertEquals("O-O-O", San.format(game, San.parse(game, "O-O-O")));
+        Assertions.assertEquals("dxe6", San.format(game, ChessMove.fromNotation("d5e6")));
+        Assertions.assertEquals("Nb1", San.format(game, San.parse(game, "Ncb1")));
+
+        game = ChessGame.fromFen("4k3/8/8/R7/8/8/8/R6R w - - 0 1");
+        Assertions.assertEquals("R1a3", San.format(game, ChessMove.fromNotation("a1a3")));
+        Assertions.assertEquals("Rhd1", San.format(game, ChessMove.fromNotation("h1d1")));
+        ChessGame twoRooks = game;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.parse(twoRooks, "Rd1"));
+
+        game = ChessGame.fromFen("4k3/8/8/8/8/8/1p6/R3K3 b - - 0 1");
+        Assertions.assertEquals(ChessMove.fromNotation("b2a1q"), San.parse(game, "bxa1=Q+"));
+        Assertions.assertEquals("bxa1=Q+", San.format(game, ChessMove.fromNotation("b2a1q")));
+        Assertions.assertEquals("bxa1=N", San.format(game, ChessMove.fromNotation("b2a1n")));
+
+        game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        Assertions.assertEquals("Ra8#", San.format(game, ChessMove.fromNotation("a1a8")));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.parse(new ChessGame(), "e5"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.parse(new ChessGame(), "Zf3"));
+    }
+}
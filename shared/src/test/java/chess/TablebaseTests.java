@@ -0,0 +1,119 @@
+package chess;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+public class TablebaseTests {
+
+    @TempDir
+    static Path directory;
+
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        tablebase = Tablebase.openOrGenerate(directory);
+    }
+
+    @AfterAll
+    public static void close() throws IOException {
+        tablebase.close();
+    }
+
+    @Test
+    @DisplayName("Longest Mates Match The Known Endgames")
+    public void longestMates() throws IOException {
+        // mate in 10 with a queen, 16 with a rook, 28 with a pawn, from the worst start for the winner
+        Assertions.assertEquals(19, longestWin(ChessPiece.PieceType.QUEEN));
+        Assertions.assertEquals(31, longestWin(ChessPiece.PieceType.ROOK));
+        Assertions.assertEquals(55, longestWin(ChessPiece.PieceType.PAWN));
+    }
+
+    private static int longestWin(ChessPiece.PieceType piece) throws IOException {
+        byte[] table = Files.readAllBytes(directory.resolve(Tablebase.fileName(piece)));
+        int longest = 0;
+        for (int i = Tablebase.HEADER_BYTES; i < table.length; i++) {
+            longest = Math.max(longest, table[i]);
+        }
+        return longest;
+    }
+
+    @Test
+    @DisplayName("Probe Finds Wins, Losses And Draws")
+    public void probe() {
+        assertResult(ChessGame.TeamColor.WHITE, 1, "k7/8/1K6/8/8/8/8/6Q1 w - - 0 1");
+        assertResult(ChessGame.TeamColor.WHITE, 0, "k5Q1/8/1K6/8/8/8/8/8 b - - 0 1");
+        // the king in front of its pawn on the sixth row wins whoever is to move...
+        assertResult(ChessGame.TeamColor.WHITE, 24, "4k3/8/4K3/4P3/8/8/8/8 b - - 0 1");
+        // ...but behind it, with the defender holding the opposition, only draws
+        assertResult(null, 0, "4k3/8/4P3/4K3/8/8/8/8 w - - 0 1");
+        assertResult(null, 0, "k7/8/8/8/8/8/P7/K7 w - - 0 1");
+        // the queen is lost at once
+        assertResult(null, 0, "8/8/8/8/8/2k5/1Q6/7K b - - 0 1");
+    }
+
+    @Test
+    @DisplayName("Black's Extra Piece Is Looked Up Turned Around")
+    public void blackPieces() {
+        assertResult(ChessGame.TeamColor.BLACK, 1, "6q1/8/8/8/8/1k6/8/K7 b - - 0 1");
+        assertResult(ChessGame.TeamColor.BLACK, 2, "6q1/8/8/8/8/1k6/8/K7 w - - 0 1");
+        assertResult(ChessGame.TeamColor.BLACK, 24, "8/8/8/8/4p3/4k3/8/4K3 w - - 0 1");
+    }
+
+    @Test
+    @DisplayName("Positions Outside The Tables")
+    public void notCovered() throws IOException {
+        Assertions.assertNull(tablebase.probe(new ChessGame()));
+        Assertions.assertNull(tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/2B1K3 w - - 0 1")));
+        Assertions.assertNull(tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K2R w K - 0 1")));
+
+        // bare kings need no table at all
+        try (Tablebase empty = Tablebase.open(directory.resolve("missing"))) {
+            Assertions.assertFalse(empty.covers(ChessPiece.PieceType.ROOK));
+            Assertions.assertEquals(new TablebaseResult(null, 0),
+                    empty.probe(ChessGame.fromFen("8/8/3k4/8/8/3K4/8/8 w - - 0 1")));
+            Assertions.assertNull(empty.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1")));
+        }
+    }
+
+    @Test
+    @DisplayName("Best Play Mates In The Announced Number Of Plies")
+    public void bestPlay() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/R3K3 w - - 0 1");
+        TablebaseResult result = tablebase.probe(game);
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, result.winner());
+
+        for (int plies = result.pliesToMate(); plies > 0; plies--) {
+            // the winner keeps to the fastest mate and the loser to the slowest, so every move is
+            // one ply closer
+            ChessMove best = null;
+            Collection<ChessMove> moves = game.allValidMoves(game.getTeamTurn());
+            for (ChessMove move : moves) {
+                ChessGame next = new ChessGame(game);
+                next.makeMove(move);
+                TablebaseResult after = tablebase.probe(next);
+                if (after != null && after.winner() == result.winner() && after.pliesToMate() == plies - 1) {
+                    best = move;
+                    break;
+                }
+            }
+            Assertions.assertNotNull(best, "no move keeps to the result at " + game.toFen());
+            game.makeMove(best);
+        }
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    private static void assertResult(ChessGame.TeamColor winner, int plies, String fen) {
+        TablebaseResult result = tablebase.probe(ChessGame.fromFen(fen));
+        Assertions.assertEquals(new TablebaseResult(winner, plies), result, fen);
+    }
+}
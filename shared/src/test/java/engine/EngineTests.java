@@ -0,0 +1,39 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class EngineTests {
+
+    @Test
+    @DisplayName("Finds Back Rank Mate")
+    public void mateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Engine().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(ChessMove.fromNotation("a1a8"), result.bestMove());
+        Assertions.assertEquals(Engine.MATE_SCORE - 1, result.score());
+    }
+
+    @Test
+    @DisplayName("Takes Hanging Queen")
+    public void winsMaterial() {
+        ChessGame game = ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p1q1/3P4/2N5/PPP1PPPP/R1BQKBNR w KQkq - 0 3");
+        String fen = game.toFen();
+        SearchResult result = new Engine().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(ChessMove.fromNotation("c1g5"), result.bestMove());
+        Assertions.assertTrue(result.score() > 500);
+        Assertions.assertEquals(fen, game.toFen(), "search works on a copy of the game");
+    }
+
+    @Test
+    @DisplayName("Stops At Node Budget")
+    public void nodeBudget() {
+        SearchResult result = new Engine().search(new ChessGame(), SearchLimits.nodes(20_000));
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.nodes() <= 20_000);
+        Assertions.assertTrue(result.depth() >= 1);
+    }
+}
@@ -0,0 +1,76 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+
+public class OpeningBookTests {
+
+    private static final String PGN = """
+            [Event "One"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 {the most common reply} Nc6 3. Bb5 a6 1-0
+
+            [Event "Two"]
+            [Result "1/2-1/2"]
+
+            1. e4 c5 (1... e5 2. Nf3) 2. Nf3 d6 1/2-1/2
+
+            [Event "Three"]
+            [Result "0-1"]
+
+            1. d4 Nf6 2. c4 e6 0-1
+
+            [Event "Four"]
+            [Result "*"]
+
+            1. e4 e5 2. Nf3 Nf6 *
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Built Book Finds Moves By Position")
+    public void buildAndRead() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(4, 1);
+        builder.addPgn(new StringReader(PGN));
+        Path file = directory.resolve("book.bin");
+        builder.write(file);
+
+        try (OpeningBook book = OpeningBook.open(file)) {
+            ChessGame game = new ChessGame();
+            Assertions.assertEquals(ChessMove.fromNotation("e2e4"), book.bestMove(game));
+            List<BookMove> moves = book.moves(game);
+            Assertions.assertEquals(2, moves.size());
+            Assertions.assertEquals(new BookMove(ChessMove.fromNotation("e2e4"), "e4", 3), moves.get(0));
+            Assertions.assertEquals(new BookMove(ChessMove.fromNotation("d2d4"), "d4", 1), moves.get(1));
+            // weighted 3 to 1, so picks 0 to 2 land on e4 and 3 on d4
+            Assertions.assertEquals(ChessMove.fromNotation("e2e4"), book.pickMove(game, 2L));
+            Assertions.assertEquals(ChessMove.fromNotation("d2d4"), book.pickMove(game, 3L));
+
+            game.makeUncheckedMove(ChessMove.fromNotation("e2e4"));
+            MoveList scratch = new MoveList();
+            Assertions.assertEquals(ChessMove.fromNotation("e7e5"), book.bestMove(game, scratch));
+            Assertions.assertEquals(ChessMove.fromNotation("e7e5"), book.pickMove(game, 12345L, scratch));
+            // a white move on black's turn, and a pawn pushed too far, are both refused
+            Assertions.assertTrue(game.isLegalMove(MoveList.encode(ChessMove.fromNotation("e7e5")), scratch));
+            Assertions.assertFalse(game.isLegalMove(MoveList.encode(ChessMove.fromNotation("d2d4")), scratch));
+            Assertions.assertFalse(game.isLegalMove(MoveList.encode(ChessMove.fromNotation("e7e4")), scratch));
+
+            game.makeUncheckedMove(ChessMove.fromNotation("a7a6"));
+            Assertions.assertEquals(-1, book.find(game.positionKey()));
+            Assertions.assertNull(book.bestMove(game));
+        }
+    }
+}